@@ -0,0 +1,151 @@
+package com.ecommerce.project.cart;
+
+import com.ecommerce.project.payload.cart.CartSweepStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Deletes carts nobody has written for {@code cart.sweeper.idle-days}, with their items. The
+ * carts table is walked in cart id order, one chunk per transaction: a chunk locks only its idle
+ * rows, skipping any a request holds, and leaves out carts the store holds with changes not
+ * written yet, so a cart written meanwhile is either left alone or makes its writer reload it. A pass that removed rows vacuums both tables so their dead space is reused.
+ */
+@Component
+public class AbandonedCartSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(AbandonedCartSweeper.class);
+
+    private static final String NEXT_CHUNK =
+            "select cart_id from carts where cart_id > ? order by cart_id limit ?";
+    private static final String LOCK_IDLE =
+            "select cart_id from carts where cart_id between ? and ? and updated_at < ? for update skip locked";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CartStore cartStore;
+    private final boolean enabled;
+    private final Duration idleWindow;
+    private final int batchSize;
+    private final boolean vacuum;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong totalScanned = new AtomicLong();
+    private final AtomicLong totalRemoved = new AtomicLong();
+    private final AtomicReference<CartSweepStats> lastRun = new AtomicReference<>();
+
+    public AbandonedCartSweeper(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                CartStore cartStore,
+                                @Value("${cart.sweeper.enabled:true}") boolean enabled,
+                                @Value("${cart.sweeper.idle-days:30}") long idleDays,
+                                @Value("${cart.sweeper.batch-size:500}") int batchSize,
+                                @Value("${cart.sweeper.vacuum:true}") boolean vacuum) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cartStore = cartStore;
+        this.enabled = enabled;
+        this.idleWindow = Duration.ofDays(idleDays);
+        this.batchSize = Math.max(1, batchSize);
+        this.vacuum = vacuum;
+    }
+
+    @Scheduled(fixedDelayString = "${cart.sweeper.interval-ms:3600000}",
+            initialDelayString = "${cart.sweeper.initial-delay-ms:300000}")
+    public void scheduledSweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            log.error("Abandoned cart sweep failed", e);
+        }
+    }
+
+    /**
+     * Runs one pass over the carts table.
+     *
+     * @return the counts of this pass
+     */
+    public synchronized CartSweepStats sweep() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime cutoff = startedAt.minus(idleWindow);
+        long scanned = 0;
+        long removed = 0;
+        long after = 0;
+        while (true) {
+            List<Long> chunk = jdbcTemplate.queryForList(NEXT_CHUNK, Long.class, after, batchSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            scanned += chunk.size();
+            after = chunk.get(chunk.size() - 1);
+            List<Long> deleted = transactionTemplate.execute(status -> deleteIdle(chunk, cutoff));
+            if (deleted != null) {
+                removed += deleted.size();
+            }
+            if (chunk.size() < batchSize) {
+                break;
+            }
+        }
+        if (removed > 0 && vacuum) {
+            //plain vacuum, it runs alongside reads and writes and hands the dead rows' space back
+            jdbcTemplate.execute("vacuum (analyze) cart_items, carts");
+        }
+
+        totalScanned.addAndGet(scanned);
+        totalRemoved.addAndGet(removed);
+        CartSweepStats stats = CartSweepStats.builder()
+                .runs(runs.incrementAndGet())
+                .lastRunAt(startedAt)
+                .lastDurationMs(Duration.between(startedAt, LocalDateTime.now()).toMillis())
+                .lastScanned(scanned)
+                .lastRemoved(removed)
+                .totalScanned(totalScanned.get())
+                .totalRemoved(totalRemoved.get())
+                .idleDays(idleWindow.toDays())
+                .build();
+        lastRun.set(stats);
+        if (removed > 0) {
+            log.info("Swept {} abandoned carts out of {} scanned", removed, scanned);
+        }
+        return stats;
+    }
+
+    /**
+     * @return the counts of the last pass, all zero when none has run yet
+     */
+    public CartSweepStats stats() {
+        CartSweepStats last = lastRun.get();
+        return last != null ? last : CartSweepStats.builder().idleDays(idleWindow.toDays()).build();
+    }
+
+    private List<Long> deleteIdle(List<Long> chunk, LocalDateTime cutoff) {
+        List<Long> idle = jdbcTemplate.queryForList(LOCK_IDLE, Long.class,
+                chunk.get(0), chunk.get(chunk.size() - 1), cutoff);
+        if (idle.isEmpty()) {
+            return List.of();
+        }
+        //a resident cart with unwritten changes is active, its row is just older than its state
+        List<Long> released = cartStore.releaseForDelete(idle);
+        if (released.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> args = released.stream().map(cartId -> new Object[]{cartId}).toList();
+        jdbcTemplate.batchUpdate("delete from cart_items where cart_id = ?", args);
+        jdbcTemplate.batchUpdate("delete from carts where cart_id = ?", args);
+        return released;
+    }
+}
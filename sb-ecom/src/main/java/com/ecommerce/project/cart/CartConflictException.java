@@ -0,0 +1,16 @@
+package com.ecommerce.project.cart;
+
+import com.ecommerce.project.exceptions.APIException;
+
+import java.util.Set;
+
+/**
+ * A cart write found its carts row changed since the cart was read. The cart has been dropped
+ * from the store, so reading it again returns the current state.
+ */
+public class CartConflictException extends APIException {
+
+    public CartConflictException(Set<Long> cartIds) {
+        super("Cart " + cartIds + " was changed by another request, please try again");
+    }
+}
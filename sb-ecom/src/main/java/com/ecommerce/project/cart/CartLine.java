@@ -0,0 +1,15 @@
+package com.ecommerce.project.cart;
+
+/**
+ * One cart_items row as held by {@link CartState}.
+ */
+public record CartLine(Long productId, int quantity, double discount, double productPrice, long priceVersion) {
+
+    public double subtotal() {
+        return productPrice * quantity;
+    }
+
+    public CartLine repriced(double newDiscount, double newProductPrice, long newPriceVersion) {
+        return new CartLine(productId, quantity, newDiscount, newProductPrice, newPriceVersion);
+    }
+}
@@ -0,0 +1,83 @@
+package com.ecommerce.project.cart;
+
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.cart.CartLineDTO;
+import com.ecommerce.project.util.ExportFormat;
+import com.ecommerce.project.util.QueryExporter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads carts for the admin listing, in cart id order: a keyset page is one query for the carts
+ * and one for their lines, an export streams every line through a cursor.
+ */
+@Component
+public class CartListingReader {
+
+    private static final String SELECT_CARTS =
+            "select cart_id, total_price from carts where cart_id > ? order by cart_id limit ?";
+    private static final String SELECT_LINES =
+            "select ci.cart_id, p.product_id, p.product_name, p.image, ci.quantity, p.price, ci.discount, ci.product_price " +
+            "from cart_items ci join products p on p.product_id = ci.product_id " +
+            "where ci.cart_id between ? and ? order by ci.cart_id, ci.cart_item_id";
+    private static final String EXPORT =
+            "select c.cart_id, c.user_id, c.total_price, c.updated_at, " +
+            "ci.product_id, ci.quantity, ci.discount, ci.product_price " +
+            "from carts c left join cart_items ci on ci.cart_id = c.cart_id " +
+            "order by c.cart_id, ci.cart_item_id";
+    private static final List<String> EXPORT_COLUMNS = List.of(
+            "cart_id", "user_id", "total_price", "updated_at", "product_id", "quantity", "discount", "product_price");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryExporter queryExporter;
+
+    CartListingReader(JdbcTemplate jdbcTemplate, QueryExporter queryExporter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queryExporter = queryExporter;
+    }
+
+    /**
+     * @return up to {@code limit} carts with ids above {@code afterCartId}, with their lines
+     */
+    public List<CartDTO> page(long afterCartId, int limit) {
+        Map<Long, CartDTO> carts = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_CARTS, rs -> {
+            CartDTO cart = new CartDTO();
+            cart.setCartId(rs.getLong("cart_id"));
+            cart.setTotalPrice(rs.getDouble("total_price"));
+            carts.put(cart.getCartId(), cart);
+        }, afterCartId, limit);
+        if (carts.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = new ArrayList<>(carts.keySet());
+        jdbcTemplate.query(SELECT_LINES, rs -> {
+            CartDTO cart = carts.get(rs.getLong("cart_id"));
+            if (cart != null) {
+                cart.getProducts().add(new CartLineDTO(
+                        rs.getLong("product_id"),
+                        rs.getString("product_name"),
+                        rs.getString("image"),
+                        rs.getInt("quantity"),
+                        rs.getDouble("price"),
+                        rs.getDouble("discount"),
+                        rs.getDouble("product_price")));
+            }
+        }, ids.get(0), ids.get(ids.size() - 1));
+        return new ArrayList<>(carts.values());
+    }
+
+    /**
+     * Writes one row per cart line, and one with empty line columns per empty cart.
+     */
+    public void export(ExportFormat format, OutputStream out) {
+        queryExporter.export(EXPORT, new Object[0], format, out, EXPORT_COLUMNS);
+    }
+}
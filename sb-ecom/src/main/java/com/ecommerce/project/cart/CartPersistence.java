@@ -0,0 +1,144 @@
+package com.ecommerce.project.cart;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plain JDBC access to carts and cart_items for {@link CartStore}. A cart is read with one
+ * query; a write deletes, updates and inserts only the item rows that differ from the ones the
+ * cart was read or last written with, each kind in one batch across all carts.
+ */
+@Component
+class CartPersistence {
+
+    private static final String SELECT_CART =
+            "select c.cart_id, c.user_id, c.total_price, c.version, u.email, " +
+            "ci.product_id, ci.quantity, ci.discount, ci.product_price, ci.price_version " +
+            "from carts c join users u on u.user_id = c.user_id " +
+            "left join cart_items ci on ci.cart_id = c.cart_id ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    CartPersistence(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    CartState loadByEmail(String email) {
+        return jdbcTemplate.query(SELECT_CART + "where u.email = ? order by c.cart_id, ci.cart_item_id",
+                this::readCart, email);
+    }
+
+    CartState loadById(Long cartId) {
+        return jdbcTemplate.query(SELECT_CART + "where c.cart_id = ? order by ci.cart_item_id",
+                this::readCart, cartId);
+    }
+
+    Long insertCart(Long userId) {
+        return jdbcTemplate.queryForObject(
+                "insert into carts (total_price, user_id, version, updated_at) values (0, ?, 0, now()) returning cart_id", Long.class, userId);
+    }
+
+    /**
+     * Writes the carts in cart id order, so two concurrent writers lock rows in the same order.
+     * The carts row is updated first and only at the version the snapshot was based on: it holds
+     * the row lock that orders this write after any other in-flight write of the same cart, and
+     * a write that lost the race to another one changes nothing.
+     *
+     * @return ids of carts whose row no longer exists or was changed since; nothing was written for them
+     */
+    Set<Long> write(List<CartState.Snapshot> snapshots) {
+        List<CartState.Snapshot> ordered = new ArrayList<>(snapshots);
+        ordered.sort(Comparator.comparing(CartState.Snapshot::cartId));
+
+        List<Object[]> totals = new ArrayList<>(ordered.size());
+        ordered.forEach(snapshot -> totals.add(new Object[]{snapshot.totalPrice(), snapshot.cartId(), snapshot.rowVersion()}));
+        int[] updated = jdbcTemplate.batchUpdate(
+                "update carts set total_price = ?, version = version + 1, updated_at = now() " +
+                "where cart_id = ? and version = ?", totals);
+
+        Set<Long> stale = new HashSet<>();
+        List<Object[]> removed = new ArrayList<>();
+        List<Object[]> changed = new ArrayList<>();
+        List<Object[]> items = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            CartState.Snapshot snapshot = ordered.get(i);
+            if (updated[i] == 0) {
+                stale.add(snapshot.cartId());
+                continue;
+            }
+            //the row version matched, so cart_items still holds exactly the persisted lines
+            Set<Long> kept = new HashSet<>();
+            for (CartLine line : snapshot.lines()) {
+                kept.add(line.productId());
+                CartLine before = snapshot.persisted().get(line.productId());
+                if (before == null) {
+                    items.add(new Object[]{snapshot.cartId(), line.productId(), line.quantity(), line.discount(),
+                            line.productPrice(), line.priceVersion()});
+                } else if (!before.equals(line)) {
+                    changed.add(new Object[]{line.quantity(), line.discount(), line.productPrice(), line.priceVersion(),
+                            snapshot.cartId(), line.productId()});
+                }
+            }
+            snapshot.persisted().keySet().stream()
+                    .filter(productId -> !kept.contains(productId))
+                    .forEach(productId -> removed.add(new Object[]{snapshot.cartId(), productId}));
+        }
+
+        if (!removed.isEmpty()) {
+            jdbcTemplate.batchUpdate("delete from cart_items where cart_id = ? and product_id = ?", removed);
+        }
+        if (!changed.isEmpty()) {
+            jdbcTemplate.batchUpdate("update cart_items set quantity = ?, discount = ?, product_price = ?, price_version = ? " +
+                    "where cart_id = ? and product_id = ?", changed);
+        }
+        if (!items.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into cart_items (cart_id, product_id, quantity, discount, product_price, price_version) " +
+                    "values (?, ?, ?, ?, ?, ?)", items);
+        }
+        return stale;
+    }
+
+    /**
+     * Drops a product from every cart row holding it and takes its subtotal off those carts.
+     */
+    void deleteProductFromCarts(Long productId) {
+        jdbcTemplate.update("update carts c set version = c.version + 1, total_price = c.total_price - " +
+                "(select coalesce(sum(ci.product_price * ci.quantity), 0) from cart_items ci " +
+                "where ci.cart_id = c.cart_id and ci.product_id = ?) " +
+                "where c.cart_id in (select ci.cart_id from cart_items ci where ci.product_id = ?)",
+                productId, productId);
+        jdbcTemplate.update("delete from cart_items where product_id = ?", productId);
+    }
+
+    private CartState readCart(ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            return null;
+        }
+        long cartId = rs.getLong("cart_id");
+        Long userId = rs.getLong("user_id");
+        double totalPrice = rs.getDouble("total_price");
+        long rowVersion = rs.getLong("version");
+        String email = rs.getString("email");
+        List<CartLine> lines = new ArrayList<>();
+        //a user with more than one cart row gets the first one, like findCartByEmail expects
+        do {
+            if (rs.getLong("cart_id") != cartId) {
+                break;
+            }
+            long productId = rs.getLong("product_id");
+            if (!rs.wasNull()) {
+                lines.add(new CartLine(productId, rs.getInt("quantity"),
+                        rs.getDouble("discount"), rs.getDouble("product_price"), rs.getLong("price_version")));
+            }
+        } while (rs.next());
+        return new CartState(cartId, userId, email, lines, totalPrice, rowVersion);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecommerce.project.cart;
+
+import com.ecommerce.project.repositories.projection.CartProductView;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the products behind a cart's lines in one statement, only the columns the cart view
+ * renders, mapped by hand instead of loading managed Product entities.
+ */
+@Component
+public class CartProductReader {
+
+    private static final String SELECT_PRODUCTS =
+            "select product_id, product_name, image, price, discount, special_price, price_version " +
+            "from products where product_id in (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    CartProductReader(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the products that still exist, by id
+     */
+    public Map<Long, CartProductView> find(Collection<Long> productIds) {
+        Map<Long, CartProductView> products = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return products;
+        }
+        jdbcTemplate.query(SELECT_PRODUCTS, Map.of("ids", productIds), rs -> {
+            CartProductView product = new CartProductView(
+                    rs.getLong("product_id"),
+                    rs.getString("product_name"),
+                    rs.getString("image"),
+                    rs.getDouble("price"),
+                    rs.getDouble("discount"),
+                    rs.getDouble("special_price"),
+                    rs.getLong("price_version"));
+            products.put(product.productId(), product);
+        });
+        return products;
+    }
+}
@@ -0,0 +1,221 @@
+package com.ecommerce.project.cart;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A user's cart as kept by {@link CartStore}. Every mutation bumps the version and recomputes
+ * the total; the cart is dirty until a flush has written that version.
+ * Callers that check then change a cart hold its monitor for the whole step.
+ * The row version is the version of the carts row this state is based on; a write only
+ * succeeds while the row still has it. The persisted lines are the cart_items rows at that
+ * version, so a write only touches the rows that differ from them.
+ * Changes made through {@link #apply} are kept until their version is written, so they can be
+ * applied again on top of the current row when a write finds it changed elsewhere.
+ */
+public class CartState {
+
+    private final Long cartId;
+    private final Long userId;
+    private final String email;
+    private final LinkedHashMap<Long, CartLine> lines = new LinkedHashMap<>();
+    private Map<Long, CartLine> persisted;
+    private double totalPrice;
+
+    private long version;
+    private long flushedVersion;
+    private long rowVersion;
+    private boolean detached;
+    private volatile long lastAccess = System.nanoTime();
+    //held while a snapshot of this cart is taken and written, so its writes reach the database in version order
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final List<PendingChange> pending = new ArrayList<>();
+    private int replays;
+    //set when a conflict carried pending changes over to a reloaded copy of this cart
+    private CartState replacement;
+    private List<PendingChange> carried = List.of();
+
+    public CartState(Long cartId, Long userId, String email, Collection<CartLine> lines, double totalPrice, long rowVersion) {
+        this.cartId = cartId;
+        this.userId = userId;
+        this.email = email;
+        lines.forEach(line -> this.lines.put(line.productId(), line));
+        this.persisted = new LinkedHashMap<>(this.lines);
+        this.totalPrice = totalPrice;
+        this.rowVersion = rowVersion;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public synchronized CartLine line(Long productId) {
+        return lines.get(productId);
+    }
+
+    public synchronized List<CartLine> lines() {
+        return new ArrayList<>(lines.values());
+    }
+
+    public synchronized double totalPrice() {
+        return totalPrice;
+    }
+
+    public synchronized void putLine(CartLine line) {
+        lines.put(line.productId(), line);
+        changed();
+    }
+
+    public synchronized CartLine removeLine(Long productId) {
+        CartLine removed = lines.remove(productId);
+        if (removed != null) {
+            changed();
+        }
+        return removed;
+    }
+
+    public synchronized void replaceLines(Collection<CartLine> newLines) {
+        lines.clear();
+        newLines.forEach(line -> lines.put(line.productId(), line));
+        changed();
+    }
+
+    /**
+     * Applies a change and keeps it until the version it produced has been written.
+     *
+     * @return the kept change, or null when the change left the cart as it was
+     */
+    synchronized PendingChange apply(Consumer<CartState> change) {
+        long before = version;
+        change.accept(this);
+        if (version == before) {
+            return null;
+        }
+        PendingChange pendingChange = new PendingChange(version, change);
+        pending.add(pendingChange);
+        return pendingChange;
+    }
+
+    synchronized List<PendingChange> pendingChanges() {
+        return new ArrayList<>(pending);
+    }
+
+    /**
+     * Records the reloaded copy that took over this cart and the changes applied to it again.
+     */
+    synchronized void replacedBy(CartState current, List<PendingChange> changes) {
+        replacement = current;
+        carried = List.copyOf(changes);
+    }
+
+    /**
+     * @return the reloaded copy holding this change, or null when no conflict carried it over
+     */
+    synchronized CartState carrierOf(PendingChange change) {
+        return replacement != null && carried.stream().anyMatch(kept -> kept == change) ? replacement : null;
+    }
+
+    /**
+     * @return how many times in a row this cart's changes were applied again after a conflict
+     */
+    synchronized int replays() {
+        return replays;
+    }
+
+    synchronized void replayed(int count) {
+        replays = count;
+    }
+
+    /**
+     * Moves a line priced at an older product price version to the current one.
+     */
+    public synchronized boolean reprice(Long productId, double discount, double productPrice, long priceVersion) {
+        CartLine line = lines.get(productId);
+        if (line == null || line.priceVersion() >= priceVersion) {
+            return false;
+        }
+        lines.put(productId, line.repriced(discount, productPrice, priceVersion));
+        changed();
+        return true;
+    }
+
+    ReentrantLock writeLock() {
+        return writeLock;
+    }
+
+    synchronized boolean isDirty() {
+        return version != flushedVersion;
+    }
+
+    synchronized Snapshot snapshot() {
+        return new Snapshot(cartId, totalPrice, new ArrayList<>(lines.values()), persisted, version, rowVersion);
+    }
+
+    synchronized void markFlushed(Snapshot flushed) {
+        if (flushed.version() >= flushedVersion) {
+            Map<Long, CartLine> written = new LinkedHashMap<>();
+            flushed.lines().forEach(line -> written.put(line.productId(), line));
+            persisted = written;
+        }
+        flushedVersion = Math.max(flushedVersion, flushed.version());
+        rowVersion = Math.max(rowVersion, flushed.rowVersion() + 1);
+        pending.removeIf(change -> change.version() <= flushed.version());
+        replays = 0;
+    }
+
+    synchronized boolean isDetached() {
+        return detached;
+    }
+
+    synchronized void detach() {
+        detached = true;
+    }
+
+    /**
+     * Detaches the cart so it can leave the store, unless it still holds unwritten changes.
+     */
+    synchronized boolean detachIfClean() {
+        if (isDirty()) {
+            return false;
+        }
+        detached = true;
+        return true;
+    }
+
+    void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+    long idleNanos(long now) {
+        return now - lastAccess;
+    }
+
+    private void changed() {
+        version++;
+        double total = 0.0;
+        for (CartLine line : lines.values()) {
+            total += line.subtotal();
+        }
+        totalPrice = total;
+    }
+
+    record PendingChange(long version, Consumer<CartState> change) {
+    }
+
+    record Snapshot(Long cartId, double totalPrice, List<CartLine> lines, Map<Long, CartLine> persisted,
+                    long version, long rowVersion) {
+    }
+}
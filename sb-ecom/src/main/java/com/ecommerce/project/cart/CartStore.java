@@ -0,0 +1,558 @@
+package com.ecommerce.project.cart;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Active carts kept in memory, sharded by user email. A miss reads the cart through from
+ * Postgres; changes are written back to carts/cart_items in batches by a background flush.
+ * The store is bounded: carts idle for {@code cart.store.idle-seconds}, or the least recently
+ * used ones past {@code cart.store.max-size}, leave it once they are clean.
+ * With {@code cart.store.enabled=false} every change is written through immediately.
+ * Writes are optimistic on the carts row version: a cart whose row was changed elsewhere in
+ * the meantime is read again and its unwritten changes are applied on top, instead of
+ * overwriting that change or losing its own.
+ */
+@Component
+public class CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CartStore.class);
+
+    private final CartPersistence persistence;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final boolean enabled;
+    private final int maxPerShard;
+    private final long idleNanos;
+    private final int flushBatchSize;
+    private final int maxAttempts;
+
+    private final Shard[] shards;
+    private final Map<Long, String> cartEmails = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public CartStore(CartPersistence persistence,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${cart.store.enabled:true}") boolean enabled,
+                     @Value("${cart.store.shards:64}") int shardCount,
+                     @Value("${cart.store.max-size:100000}") int maxSize,
+                     @Value("${cart.store.idle-seconds:1800}") long idleSeconds,
+                     @Value("${cart.store.flush-interval-ms:500}") long flushIntervalMs,
+                     @Value("${cart.store.flush-batch-size:500}") int flushBatchSize,
+                     @Value("${cart.store.max-attempts:3}") int maxAttempts) {
+        this.persistence = persistence;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.maxPerShard = Math.max(1, (maxSize + shardCount - 1) / shardCount);
+        this.idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        this.flushBatchSize = flushBatchSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+
+        if (enabled) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cart-store-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushAndEvict, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * @return the user's cart, or null when the user has none
+     */
+    public CartState find(String email) {
+        if (!enabled) {
+            return detached(persistence.loadByEmail(email));
+        }
+        Shard shard = shard(email);
+        CartState cart = shard.get(email);
+        if (cart != null) {
+            cart.touch();
+            return cart;
+        }
+        CartState loaded = persistence.loadByEmail(email);
+        return loaded == null ? null : attach(shard, loaded);
+    }
+
+    /**
+     * @return the cart with this id, or null when there is none
+     */
+    public CartState findById(Long cartId) {
+        String email = cartEmails.get(cartId);
+        if (email != null) {
+            CartState cart = find(email);
+            if (cart != null && cart.getCartId().equals(cartId)) {
+                return cart;
+            }
+        }
+        CartState loaded = persistence.loadById(cartId);
+        if (loaded == null || !enabled) {
+            return detached(loaded);
+        }
+        return attach(shard(loaded.getEmail()), loaded);
+    }
+
+    /**
+     * Returns the user's cart, inserting an empty carts row first when there is none. The row
+     * is committed straight away so the cart id stays valid for the write-behind flush.
+     */
+    public CartState getOrCreate(String email, Supplier<Long> userId) {
+        CartState cart = find(email);
+        if (cart != null) {
+            return cart;
+        }
+        Shard shard = shard(email);
+        //creation is serialized per shard so two requests cannot insert two carts for one user
+        synchronized (shard.creationLock) {
+            CartState resident = shard.get(email);
+            if (resident != null) {
+                return resident;
+            }
+            CartState loaded = persistence.loadByEmail(email);
+            if (loaded == null) {
+                Long ownerId = userId.get();
+                Long cartId = newTransactionTemplate.execute(status -> persistence.insertCart(ownerId));
+                loaded = new CartState(cartId, ownerId, email, List.of(), 0.0, 0);
+            }
+            return enabled ? attach(shard, loaded) : detached(loaded);
+        }
+    }
+
+    /**
+     * Applies a change to the cart returned by {@code loader} while holding its monitor, then
+     * reports it with {@link #changed}. When the write finds the cart changed elsewhere, the cart
+     * is loaded and changed again, up to {@code cart.store.max-attempts} times. A resident cart
+     * is written later; if that flush conflicts, the change is applied again to the reloaded cart.
+     *
+     * @return the changed cart
+     */
+    public CartState update(Supplier<CartState> loader, Consumer<CartState> change) {
+        for (int attempt = 1; ; attempt++) {
+            CartState cart = loader.get();
+            CartState.PendingChange applied = cart.apply(change);
+            try {
+                changed(cart);
+                return cart;
+            } catch (CartConflictException e) {
+                //a flush that conflicted meanwhile may have applied this change to the reloaded cart already
+                CartState carrier = applied != null ? cart.carrierOf(applied) : null;
+                if (carrier != null) {
+                    return carrier;
+                }
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Cart {} changed concurrently, retrying (attempt {})", cart.getCartId(), attempt);
+            }
+        }
+    }
+
+    /**
+     * Called after a cart was changed. Resident carts are left to the background flush; a cart
+     * that is not held by the store is written now, inside the caller's transaction.
+     *
+     * @throws CartConflictException when the carts row was changed since the cart was read
+     */
+    public void changed(CartState cart) {
+        if (cart.isDetached()) {
+            write(List.of(cart), false);
+        }
+    }
+
+    /**
+     * Writes the user's cart now if it has unflushed changes, for readers that go to the
+     * database directly.
+     */
+    public void flush(String email) {
+        if (!enabled) {
+            return;
+        }
+        CartState cart = shard(email).get(email);
+        if (cart != null && cart.isDirty()) {
+            write(List.of(cart), false);
+        }
+    }
+
+    public void flushAll() {
+        if (!enabled) {
+            return;
+        }
+        List<CartState> dirty = collect(CartState::isDirty);
+        for (int from = 0; from < dirty.size(); from += flushBatchSize) {
+            write(dirty.subList(from, Math.min(from + flushBatchSize, dirty.size())), true);
+        }
+    }
+
+    /**
+     * Takes the given products out of the cart and writes it now, inside the caller's
+     * transaction. Lines of other products, added after the caller read the cart, stay.
+     */
+    public void removeLines(CartState cart, Collection<Long> productIds) {
+        synchronized (cart) {
+            productIds.forEach(cart::removeLine);
+        }
+        write(List.of(cart), false);
+    }
+
+    /**
+     * Takes a product out of every cart before the product itself is deleted. Resident carts
+     * are changed in memory and written now, the remaining cart rows are cleaned up in bulk.
+     */
+    public void removeProduct(Long productId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (enabled) {
+                List<CartState> holding = collect(cart -> cart.line(productId) != null);
+                holding.forEach(cart -> cart.removeLine(productId));
+                if (!holding.isEmpty()) {
+                    write(holding, false);
+                }
+            }
+            persistence.deleteProductFromCarts(productId);
+        });
+    }
+
+    /**
+     * Lets go of the resident copies of carts whose rows are about to be deleted. A cart that
+     * still holds changes not written yet is kept: it is not idle, whatever its row says. A
+     * writer still holding a released copy writes through and finds the row gone.
+     *
+     * @return the ids whose rows can be deleted
+     */
+    public List<Long> releaseForDelete(Collection<Long> cartIds) {
+        List<Long> released = new ArrayList<>(cartIds.size());
+        for (Long cartId : cartIds) {
+            String email = cartEmails.get(cartId);
+            CartState cart = email != null ? shard(email).get(email) : null;
+            if (cart != null && cart.getCartId().equals(cartId)) {
+                if (!cart.detachIfClean()) {
+                    continue;
+                }
+                shard(email).remove(cart);
+                cartEmails.remove(cartId, email);
+            }
+            released.add(cartId);
+        }
+        return released;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flushAll();
+    }
+
+    private void flushAndEvict() {
+        try {
+            flushAll();
+            long now = System.nanoTime();
+            for (Shard shard : shards) {
+                shard.evict(now);
+            }
+        } catch (RuntimeException e) {
+            log.error("Cart store flush failed", e);
+        }
+    }
+
+    /**
+     * @param retryPerCart run in its own transaction and, when the batch fails, retry cart by
+     *                     cart and drop the carts that still fail so they reload from the database
+     */
+    private void write(List<CartState> carts, boolean retryPerCart) {
+        //the caller's own change must not be lost quietly, a background flush has no one to tell
+        write(carts, retryPerCart, !retryPerCart);
+    }
+
+    private void write(List<CartState> batch, boolean retryPerCart, boolean failOnConflict) {
+        //the background flush leaves carts a request is writing right now to its next run
+        List<CartState> carts = lockForWrite(batch, retryPerCart);
+        if (carts.isEmpty()) {
+            return;
+        }
+        try {
+            List<CartState.Snapshot> snapshots = carts.stream().map(CartState::snapshot).toList();
+            try {
+                TransactionTemplate template = retryPerCart ? newTransactionTemplate : transactionTemplate;
+                Set<Long> stale = template.execute(status -> {
+                    if (!retryPerCart) {
+                        dropOnRollback(carts);
+                    }
+                    return persistence.write(snapshots);
+                });
+                markFlushed(carts, snapshots, stale);
+                if (failOnConflict && !stale.isEmpty()) {
+                    throw new CartConflictException(stale);
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (!retryPerCart) {
+                    throw e;
+                }
+                log.warn("Batched flush of {} carts failed, writing them one by one", carts.size(), e);
+            }
+            for (int i = 0; i < carts.size(); i++) {
+                CartState.Snapshot snapshot = snapshots.get(i);
+                try {
+                    Set<Long> stale = newTransactionTemplate.execute(status -> persistence.write(List.of(snapshot)));
+                    markFlushed(List.of(carts.get(i)), List.of(snapshot), stale);
+                } catch (RuntimeException e) {
+                    log.error("Dropping unflushed changes of cart {}", snapshot.cartId(), e);
+                    drop(carts.get(i));
+                }
+            }
+        } finally {
+            carts.forEach(cart -> cart.writeLock().unlock());
+        }
+    }
+
+    /**
+     * Takes the write locks of the carts in cart id order, so two writers of overlapping carts
+     * cannot deadlock. Writers of different carts do not wait for each other; the row version
+     * check orders them against writers in other processes.
+     *
+     * @param skipBusy leave out carts whose lock is held instead of waiting for it
+     * @return the locked carts, in cart id order
+     */
+    private static List<CartState> lockForWrite(List<CartState> carts, boolean skipBusy) {
+        List<CartState> ordered = new ArrayList<>(carts);
+        ordered.sort(Comparator.comparing(CartState::getCartId));
+        List<CartState> locked = new ArrayList<>(ordered.size());
+        for (CartState cart : ordered) {
+            if (skipBusy) {
+                if (cart.writeLock().tryLock()) {
+                    locked.add(cart);
+                }
+            } else {
+                cart.writeLock().lock();
+                locked.add(cart);
+            }
+        }
+        return locked;
+    }
+
+    //the memory state ran ahead of a write that never committed, reload these carts next time
+    private void dropOnRollback(List<CartState> carts) {
+        List<CartState> written = List.copyOf(carts);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    written.forEach(CartStore.this::drop);
+                }
+            }
+        });
+    }
+
+    private void markFlushed(List<CartState> carts, List<CartState.Snapshot> snapshots, Set<Long> stale) {
+        for (int i = 0; i < carts.size(); i++) {
+            CartState cart = carts.get(i);
+            if (stale.contains(cart.getCartId())) {
+                //the carts row was changed or deleted underneath us, the database copy wins
+                if (cart.isDetached()) {
+                    drop(cart);
+                } else {
+                    replay(cart);
+                }
+            } else {
+                cart.markFlushed(snapshots.get(i));
+            }
+        }
+    }
+
+    /**
+     * Replaces a resident cart whose write conflicted with the current row, and applies the
+     * changes it had not written yet on top. Changes that no longer apply are skipped; a cart
+     * that conflicts {@code cart.store.max-attempts} times in a row is dropped.
+     */
+    private void replay(CartState stale) {
+        List<CartState.PendingChange> changes;
+        int replays;
+        synchronized (stale) {
+            changes = stale.pendingChanges();
+            replays = stale.replays();
+            //writers still holding this copy now write through, conflict and reload
+            stale.detach();
+        }
+        if (changes.isEmpty()) {
+            drop(stale);
+            return;
+        }
+        if (replays >= maxAttempts) {
+            log.warn("Cart {} keeps being changed elsewhere, dropping its unwritten changes", stale.getCartId());
+            drop(stale);
+            return;
+        }
+        CartState current = persistence.loadById(stale.getCartId());
+        if (current == null) {
+            log.warn("Cart {} was deleted, dropping its unwritten changes", stale.getCartId());
+            drop(stale);
+            return;
+        }
+        current.replayed(replays + 1);
+        List<CartState.PendingChange> carried = new ArrayList<>(changes.size());
+        for (CartState.PendingChange change : changes) {
+            try {
+                current.apply(change.change());
+                carried.add(change);
+            } catch (RuntimeException e) {
+                log.warn("Skipping a change of cart {} that no longer applies: {}", current.getCartId(), e.getMessage());
+            }
+        }
+        if (!shard(current.getEmail()).replace(stale, current)) {
+            //another copy of the row is resident already, it holds the newer state
+            log.warn("Cart {} was reloaded meanwhile, dropping its unwritten changes", stale.getCartId());
+            drop(stale);
+            return;
+        }
+        cartEmails.put(current.getCartId(), current.getEmail());
+        //a writer whose change is among these finds it here instead of applying it a second time
+        stale.replacedBy(current, carried);
+        log.debug("Cart {} was changed elsewhere, applied {} unwritten changes on top", current.getCartId(), changes.size());
+    }
+
+    private void drop(CartState cart) {
+        cart.detach();
+        //a copy that was replaced already must not unmap its replacement
+        if (shard(cart.getEmail()).remove(cart)) {
+            cartEmails.remove(cart.getCartId(), cart.getEmail());
+        }
+    }
+
+    private CartState attach(Shard shard, CartState loaded) {
+        CartState cart = shard.putIfAbsent(loaded);
+        if (!cart.getCartId().equals(loaded.getCartId())) {
+            //the user's resident cart is another row, serve this one without keeping it
+            return detached(loaded);
+        }
+        cartEmails.put(cart.getCartId(), cart.getEmail());
+        return cart;
+    }
+
+    private CartState detached(CartState cart) {
+        if (cart != null) {
+            cart.detach();
+        }
+        return cart;
+    }
+
+    private List<CartState> collect(Predicate<CartState> filter) {
+        List<CartState> matches = new ArrayList<>();
+        for (Shard shard : shards) {
+            shard.collect(filter, matches);
+        }
+        return matches;
+    }
+
+    private Shard shard(String email) {
+        return shards[Math.floorMod(email.hashCode(), shards.length)];
+    }
+
+    private final class Shard {
+
+        private final LinkedHashMap<String, CartState> carts = new LinkedHashMap<>(16, 0.75f, true);
+        private final Object creationLock = new Object();
+
+        synchronized CartState get(String email) {
+            return carts.get(email);
+        }
+
+        synchronized CartState putIfAbsent(CartState cart) {
+            CartState resident = carts.get(cart.getEmail());
+            if (resident != null) {
+                resident.touch();
+                return resident;
+            }
+            carts.put(cart.getEmail(), cart);
+            trim();
+            return cart;
+        }
+
+        //swaps in the reloaded copy unless another one became resident meanwhile
+        synchronized boolean replace(CartState stale, CartState current) {
+            CartState resident = carts.get(current.getEmail());
+            if (resident != null && resident != stale) {
+                return false;
+            }
+            carts.put(current.getEmail(), current);
+            trim();
+            return true;
+        }
+
+        synchronized boolean remove(CartState cart) {
+            return carts.remove(cart.getEmail(), cart);
+        }
+
+        synchronized void collect(Predicate<CartState> filter, List<CartState> into) {
+            for (CartState cart : carts.values()) {
+                if (filter.test(cart)) {
+                    into.add(cart);
+                }
+            }
+        }
+
+        synchronized void evict(long now) {
+            Iterator<CartState> eldest = carts.values().iterator();
+            while (eldest.hasNext()) {
+                CartState cart = eldest.next();
+                boolean idle = cart.idleNanos(now) > idleNanos;
+                if (!idle && carts.size() <= maxPerShard) {
+                    //access order: everything after this entry was used more recently
+                    break;
+                }
+                if (cart.detachIfClean()) {
+                    eldest.remove();
+                    cartEmails.remove(cart.getCartId(), cart.getEmail());
+                }
+            }
+        }
+
+        //over capacity only clean carts are dropped here, dirty ones go after their next flush
+        private void trim() {
+            Iterator<CartState> eldest = carts.values().iterator();
+            while (carts.size() > maxPerShard && eldest.hasNext()) {
+                CartState cart = eldest.next();
+                if (cart.detachIfClean()) {
+                    eldest.remove();
+                    cartEmails.remove(cart.getCartId(), cart.getEmail());
+                }
+            }
+        }
+    }
+}
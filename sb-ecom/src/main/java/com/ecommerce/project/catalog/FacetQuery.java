@@ -0,0 +1,18 @@
+package com.ecommerce.project.catalog;
+
+import java.util.Set;
+
+/**
+ * Filters for a faceted listing. Null means "no filter" for every field.
+ *
+ * @param productIds  restricts to these ids, typically the keyword hits from {@link ProductSearchIndex}
+ * @param priceBucket index into {@link ProductFacetEngine#PRICE_BUCKET_BOUNDS}
+ * @param minRating   keeps products rated at least this many whole stars
+ */
+public record FacetQuery(Set<Long> productIds,
+                         Long categoryId,
+                         Long sellerId,
+                         Integer priceBucket,
+                         Integer minRating,
+                         boolean inStockOnly) {
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.project.catalog;
+
+import com.ecommerce.project.payload.catalog.CatalogFacets;
+import org.springframework.data.domain.Page;
+
+public record FacetResult(Page<Long> productIds, CatalogFacets facets) {
+}
@@ -0,0 +1,155 @@
+package com.ecommerce.project.catalog;
+
+import com.ecommerce.project.payload.ProductDetailResponse;
+import com.ecommerce.project.payload.catalog.CatalogCacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU + TTL read-through cache of product detail responses.
+ * Write paths call {@link #evict(Long)}; inside a transaction the entry is dropped again
+ * after commit so a reader cannot re-cache the pre-commit state.
+ */
+@Component
+public class ProductCatalogCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlSeconds;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    //one token per product being loaded, an invalidation of that product drops it
+    private final Map<Long, Object> loading = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ProductCatalogCache(@Value("${catalog.cache.enabled:true}") boolean enabled,
+                               @Value("${catalog.cache.max-size:10000}") int maxSize,
+                               @Value("${catalog.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlSeconds = ttlSeconds;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+
+    public ProductDetailResponse getDetail(Long productId, Function<Long, ProductDetailResponse> loader) {
+        if (!enabled) {
+            return loader.apply(productId);
+        }
+        ProductDetailResponse cached = lookup(productId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        Object token = startLoad(productId);
+        ProductDetailResponse loaded;
+        try {
+            loaded = loader.apply(productId);
+        } catch (RuntimeException e) {
+            endLoad(productId, token);
+            throw e;
+        }
+        store(productId, loaded, token);
+        return loaded;
+    }
+
+    public void evict(Long productId) {
+        if (!enabled || productId == null) {
+            return;
+        }
+        remove(productId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(productId);
+                }
+            });
+        }
+    }
+
+    public synchronized void evictAll() {
+        loading.clear();
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    public synchronized CatalogCacheStats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return CatalogCacheStats.builder()
+                .size(entries.size())
+                .maxSize(maxSize)
+                .ttlSeconds(ttlSeconds)
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRatio(total == 0 ? 0.0 : (double) hitCount / total)
+                .evictions(evictions.sum())
+                .expirations(expirations.sum())
+                .invalidations(invalidations.sum())
+                .build();
+    }
+
+    private synchronized ProductDetailResponse lookup(Long productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.loadedAt() > ttlNanos) {
+            entries.remove(productId);
+            expirations.increment();
+            return null;
+        }
+        return entry.detail();
+    }
+
+    private synchronized Object startLoad(Long productId) {
+        Object token = new Object();
+        loading.put(productId, token);
+        return token;
+    }
+
+    private synchronized void endLoad(Long productId, Object token) {
+        loading.remove(productId, token);
+    }
+
+    private synchronized void store(Long productId, ProductDetailResponse detail, Object token) {
+        // this product was written while we were loading, the loaded value may already be stale
+        if (!loading.remove(productId, token)) {
+            return;
+        }
+        entries.put(productId, new Entry(detail, System.nanoTime()));
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private synchronized void remove(Long productId) {
+        loading.remove(productId);
+        if (entries.remove(productId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    private record Entry(ProductDetailResponse detail, long loadedAt) {
+    }
+}
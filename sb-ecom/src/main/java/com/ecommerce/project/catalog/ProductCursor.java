@@ -0,0 +1,121 @@
+package com.ecommerce.project.catalog;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.projection.ProductListView;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Set;
+
+/**
+ * Keyset position in a product listing: the sort key of the last row served plus its productId
+ * as a tie breaker. Travels to the client as an opaque base64 token.
+ */
+public record ProductCursor(String sortBy, boolean ascending, String value, Long productId) {
+
+    public static final Set<String> SORTABLE_FIELDS = Set.of("productId", "productName", "price", "specialPrice", "discount");
+
+    private static final String SEPARATOR = "|";
+
+    public static void checkSortable(String sortBy) {
+        if (!SORTABLE_FIELDS.contains(sortBy)) {
+            throw new APIException("Cursor pagination does not support sorting by " + sortBy);
+        }
+    }
+
+    public static Sort sort(String sortBy, boolean ascending) {
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sort = Sort.by(direction, sortBy);
+        return "productId".equals(sortBy) ? sort : sort.and(Sort.by(direction, "productId"));
+    }
+
+    public static ProductCursor of(ProductListView product, String sortBy, boolean ascending) {
+        String value = switch (sortBy) {
+            case "productId" -> String.valueOf(product.productId());
+            case "productName" -> product.productName();
+            case "price" -> Double.toString(product.price());
+            case "specialPrice" -> Double.toString(product.specialPrice());
+            case "discount" -> Double.toString(product.discount());
+            default -> throw new APIException("Cursor pagination does not support sorting by " + sortBy);
+        };
+        return new ProductCursor(sortBy, ascending, value, product.productId());
+    }
+
+    public static ProductCursor decode(String token, String sortBy, boolean ascending) {
+        ProductCursor cursor;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            cursor = new ProductCursor(parts[0], "asc".equals(parts[1]), parts[3], Long.valueOf(parts[2]));
+            //numeric sort keys are read back as numbers, a bad one is rejected here rather than at query time
+            if (isNumeric(cursor.sortBy()) && !Double.isFinite(Double.parseDouble(cursor.value()))) {
+                throw new NumberFormatException(cursor.value());
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new APIException("Invalid cursor");
+        }
+        if (!cursor.sortBy().equals(sortBy) || cursor.ascending() != ascending) {
+            throw new APIException("Cursor does not match the requested sort order");
+        }
+        return cursor;
+    }
+
+    private static boolean isNumeric(String sortBy) {
+        return "price".equals(sortBy) || "specialPrice".equals(sortBy) || "discount".equals(sortBy);
+    }
+
+    public String encode() {
+        String raw = sortBy + SEPARATOR + (ascending ? "asc" : "desc") + SEPARATOR + productId + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * True when the document comes strictly after this cursor in (sortBy, productId) order,
+     * the in-memory twin of {@link #toSpecification()} for pages served by the search index.
+     */
+    public boolean isBefore(ProductSearchDocument document) {
+        int byKey = switch (sortBy) {
+            case "productId" -> 0;
+            case "productName" -> Comparator.nullsFirst(Comparator.<String>naturalOrder())
+                    .compare(document.productName(), value);
+            case "price" -> Double.compare(document.price(), Double.parseDouble(value));
+            case "specialPrice" -> Double.compare(document.specialPrice(), Double.parseDouble(value));
+            case "discount" -> Double.compare(document.discount(), Double.parseDouble(value));
+            default -> throw new APIException("Cursor pagination does not support sorting by " + sortBy);
+        };
+        int compared = byKey != 0 ? byKey : document.productId().compareTo(productId);
+        return ascending ? compared > 0 : compared < 0;
+    }
+
+    /**
+     * Rows strictly after this cursor in (sortBy, productId) order.
+     */
+    public Specification<Product> toSpecification() {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("productId");
+            Predicate idAfter = ascending ? cb.greaterThan(id, productId) : cb.lessThan(id, productId);
+            if ("productId".equals(sortBy)) {
+                return idAfter;
+            }
+            Predicate keyAfter;
+            Predicate keyEqual;
+            if ("productName".equals(sortBy)) {
+                Path<String> key = root.get(sortBy);
+                keyAfter = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+                keyEqual = cb.equal(key, value);
+            } else {
+                Path<Double> key = root.get(sortBy);
+                double number = Double.parseDouble(value);
+                keyAfter = ascending ? cb.greaterThan(key, number) : cb.lessThan(key, number);
+                keyEqual = cb.equal(key, number);
+            }
+            return cb.or(keyAfter, cb.and(keyEqual, idAfter));
+        };
+    }
+}
@@ -0,0 +1,465 @@
+package com.ecommerce.project.catalog;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.catalog.CatalogFacets;
+import com.ecommerce.project.payload.catalog.FacetCount;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column oriented snapshot of the catalog for faceted navigation. Each product is a row
+ * in a set of primitive arrays, and every facet value keeps a bitmap of its rows, so a
+ * filter is a handful of bitmap ANDs and counting is one pass over the matching rows.
+ * <p>
+ * Writes update a product's row in place. Deleted rows are only cleared from the bitmaps
+ * and their slots are reclaimed by the next {@link #rebuild()}.
+ */
+@Component
+public class ProductFacetEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetEngine.class);
+
+    /** Upper bounds of the price buckets, the last bucket is open ended. */
+    public static final double[] PRICE_BUCKET_BOUNDS = {25, 50, 100, 250, 500, 1000};
+
+    private static final int RATING_BUCKETS = 5;
+    private static final long NONE = -1L;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final Set<String> SORTABLE_FIELDS = Set.of("productId", "specialPrice", "averageRating", "quantity");
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size;
+    private long[] productIds = new long[0];
+    private long[] categoryIds = new long[0];
+    private long[] sellerIds = new long[0];
+    private double[] specialPrices = new double[0];
+    private double[] averageRatings = new double[0];
+    private int[] quantities = new int[0];
+
+    private final Map<Long, Integer> rowsByProductId = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    private final Map<Long, BitSet> bySeller = new HashMap<>();
+    private final BitSet[] byPriceBucket = newBitSets(PRICE_BUCKET_BOUNDS.length + 1);
+    private final BitSet[] byRatingBucket = newBitSets(RATING_BUCKETS);
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private final Map<Long, String> sellerNames = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public ProductFacetEngine(ProductRepository productRepository,
+                              @Value("${catalog.facets.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        List<ProductSearchDocument> documents;
+        try {
+            documents = productRepository.findAllSearchDocuments();
+            size = 0;
+            allocate(Math.max(INITIAL_CAPACITY, documents.size()));
+            rowsByProductId.clear();
+            live.clear();
+            inStock.clear();
+            byCategory.clear();
+            bySeller.clear();
+            Arrays.stream(byPriceBucket).forEach(BitSet::clear);
+            Arrays.stream(byRatingBucket).forEach(BitSet::clear);
+            categoryNames.clear();
+            sellerNames.clear();
+            documents.forEach(this::write);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product facet snapshot built with {} products", documents.size());
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public boolean canSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORTABLE_FIELDS.contains(order.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void update(Product product) {
+        if (enabled && product != null && product.getProductId() != null) {
+            update(ProductSearchDocument.from(product));
+        }
+    }
+
+    public void update(ProductSearchDocument document) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            write(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies stock deltas without reloading the products, for the inventory write paths.
+     */
+    public void adjustStock(Map<Long, Integer> deltas) {
+        if (!enabled || deltas.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            deltas.forEach((productId, delta) -> {
+                Integer row = rowsByProductId.get(productId);
+                if (row == null || !live.get(row)) {
+                    return;
+                }
+                quantities[row] += delta;
+                inStock.set(row, quantities[row] > 0);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer row = rowsByProductId.remove(productId);
+            if (row != null) {
+                clearBits(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeCategory(Long categoryId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            BitSet rows = byCategory.remove(categoryId);
+            if (rows != null) {
+                for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                    rowsByProductId.remove(productIds[row]);
+                    clearBits(row);
+                }
+            }
+            categoryNames.remove(categoryId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void renameCategory(Long categoryId, String categoryName) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            categoryNames.put(categoryId, categoryName);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The requested page of matching product ids, ordered by the pageable's sort, together with
+     * the facet counts of the filtered set.
+     */
+    public FacetResult query(FacetQuery query, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) live.clone();
+            if (query.productIds() != null) {
+                base.and(rowsOf(query.productIds()));
+            }
+            if (query.inStockOnly()) {
+                base.and(inStock);
+            }
+            BitSet category = query.categoryId() != null ? byCategory.getOrDefault(query.categoryId(), new BitSet()) : null;
+            BitSet seller = query.sellerId() != null ? bySeller.getOrDefault(query.sellerId(), new BitSet()) : null;
+            BitSet price = query.priceBucket() != null ? priceBucket(query.priceBucket()) : null;
+            BitSet rating = query.minRating() != null ? ratingAtLeast(query.minRating()) : null;
+
+            BitSet matches = and(base, category, seller, price, rating);
+
+            CatalogFacets facets = CatalogFacets.builder()
+                    .categories(countBy(and(base, seller, price, rating), categoryIds, categoryNames))
+                    .sellers(countBy(and(base, category, price, rating), sellerIds, sellerNames))
+                    .priceRanges(priceCounts(and(base, category, seller, rating)))
+                    .ratings(ratingCounts(and(base, category, seller, price)))
+                    .build();
+
+            return new FacetResult(page(matches, pageable), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private PageImpl<Long> page(BitSet matches, Pageable pageable) {
+        Integer[] rows = new Integer[matches.cardinality()];
+        int i = 0;
+        for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+            rows[i++] = row;
+        }
+        Arrays.sort(rows, comparator(pageable.getSort()));
+
+        int from = (int) Math.min(pageable.getOffset(), rows.length);
+        int to = Math.min(from + pageable.getPageSize(), rows.length);
+        List<Long> ids = new ArrayList<>(to - from);
+        for (int j = from; j < to; j++) {
+            ids.add(productIds[rows[j]]);
+        }
+        return new PageImpl<>(ids, pageable, rows.length);
+    }
+
+    private Comparator<Integer> comparator(Sort sort) {
+        Comparator<Integer> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Integer> next = switch (order.getProperty()) {
+                case "productId" -> Comparator.comparingLong(row -> productIds[row]);
+                case "specialPrice" -> Comparator.comparingDouble(row -> specialPrices[row]);
+                case "averageRating" -> Comparator.comparingDouble(row -> averageRatings[row]);
+                case "quantity" -> Comparator.comparingInt(row -> quantities[row]);
+                default -> throw new APIException("Faceted listing does not support sorting by " + order.getProperty());
+            };
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<Integer> byId = Comparator.comparingLong(row -> productIds[row]);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    private List<FacetCount> countBy(BitSet rows, long[] column, Map<Long, String> labels) {
+        Map<Long, int[]> counts = new HashMap<>();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            if (column[row] != NONE) {
+                counts.computeIfAbsent(column[row], key -> new int[1])[0]++;
+            }
+        }
+        return counts.entrySet().stream()
+                .map(entry -> FacetCount.builder()
+                        .value(entry.getKey())
+                        .label(labels.get(entry.getKey()))
+                        .count(entry.getValue()[0])
+                        .build())
+                .sorted(Comparator.comparingInt(FacetCount::getCount).reversed()
+                        .thenComparing(FacetCount::getValue))
+                .toList();
+    }
+
+    private List<FacetCount> priceCounts(BitSet rows) {
+        int[] counts = new int[byPriceBucket.length];
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            counts[priceBucketOf(specialPrices[row])]++;
+        }
+        List<FacetCount> result = new ArrayList<>(counts.length);
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            result.add(FacetCount.builder()
+                    .value(bucket)
+                    .label(priceLabel(bucket))
+                    .count(counts[bucket])
+                    .build());
+        }
+        return result;
+    }
+
+    private List<FacetCount> ratingCounts(BitSet rows) {
+        int[] counts = new int[RATING_BUCKETS];
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            counts[ratingBucketOf(averageRatings[row])]++;
+        }
+        //cumulative from the top, so each entry reads "n stars and up"
+        List<FacetCount> result = new ArrayList<>(RATING_BUCKETS - 1);
+        int atLeast = 0;
+        for (int stars = RATING_BUCKETS - 1; stars >= 1; stars--) {
+            atLeast += counts[stars];
+            result.add(FacetCount.builder()
+                    .value(stars)
+                    .label(stars + " stars & up")
+                    .count(atLeast)
+                    .build());
+        }
+        return result;
+    }
+
+    private BitSet priceBucket(int bucket) {
+        if (bucket < 0 || bucket >= byPriceBucket.length) {
+            throw new APIException("Price bucket must be between 0 and " + (byPriceBucket.length - 1));
+        }
+        return byPriceBucket[bucket];
+    }
+
+    private BitSet ratingAtLeast(int stars) {
+        if (stars < 0 || stars >= RATING_BUCKETS) {
+            throw new APIException("Minimum rating must be between 0 and " + (RATING_BUCKETS - 1));
+        }
+        BitSet rows = new BitSet();
+        for (int bucket = stars; bucket < RATING_BUCKETS; bucket++) {
+            rows.or(byRatingBucket[bucket]);
+        }
+        return rows;
+    }
+
+    private BitSet rowsOf(Set<Long> ids) {
+        BitSet rows = new BitSet();
+        for (Long id : ids) {
+            Integer row = rowsByProductId.get(id);
+            if (row != null) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    private static BitSet and(BitSet base, BitSet... filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private void write(ProductSearchDocument document) {
+        Integer existing = rowsByProductId.get(document.productId());
+        int row;
+        if (existing != null) {
+            row = existing;
+            clearBits(row);
+        } else {
+            if (size == productIds.length) {
+                allocate(Math.max(INITIAL_CAPACITY, productIds.length * 2));
+            }
+            row = size++;
+            rowsByProductId.put(document.productId(), row);
+        }
+
+        productIds[row] = document.productId();
+        categoryIds[row] = document.categoryId() != null ? document.categoryId() : NONE;
+        sellerIds[row] = document.sellerId() != null ? document.sellerId() : NONE;
+        specialPrices[row] = document.specialPrice();
+        averageRatings[row] = document.averageRating() != null ? document.averageRating() : 0.0;
+        quantities[row] = document.quantity() != null ? document.quantity() : 0;
+
+        live.set(row);
+        if (quantities[row] > 0) {
+            inStock.set(row);
+        }
+        if (categoryIds[row] != NONE) {
+            byCategory.computeIfAbsent(categoryIds[row], key -> new BitSet()).set(row);
+            categoryNames.put(categoryIds[row], document.categoryName());
+        }
+        if (sellerIds[row] != NONE) {
+            bySeller.computeIfAbsent(sellerIds[row], key -> new BitSet()).set(row);
+            sellerNames.put(sellerIds[row], document.sellerName());
+        }
+        byPriceBucket[priceBucketOf(specialPrices[row])].set(row);
+        byRatingBucket[ratingBucketOf(averageRatings[row])].set(row);
+    }
+
+    private void clearBits(int row) {
+        live.clear(row);
+        inStock.clear(row);
+        BitSet category = byCategory.get(categoryIds[row]);
+        if (category != null) {
+            category.clear(row);
+        }
+        BitSet seller = bySeller.get(sellerIds[row]);
+        if (seller != null) {
+            seller.clear(row);
+        }
+        byPriceBucket[priceBucketOf(specialPrices[row])].clear(row);
+        byRatingBucket[ratingBucketOf(averageRatings[row])].clear(row);
+    }
+
+    private void allocate(int capacity) {
+        productIds = Arrays.copyOf(productIds, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        sellerIds = Arrays.copyOf(sellerIds, capacity);
+        specialPrices = Arrays.copyOf(specialPrices, capacity);
+        averageRatings = Arrays.copyOf(averageRatings, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+    }
+
+    private static int priceBucketOf(double price) {
+        for (int bucket = 0; bucket < PRICE_BUCKET_BOUNDS.length; bucket++) {
+            if (price < PRICE_BUCKET_BOUNDS[bucket]) {
+                return bucket;
+            }
+        }
+        return PRICE_BUCKET_BOUNDS.length;
+    }
+
+    private static String priceLabel(int bucket) {
+        if (bucket == 0) {
+            return "under " + (int) PRICE_BUCKET_BOUNDS[0];
+        }
+        if (bucket == PRICE_BUCKET_BOUNDS.length) {
+            return (int) PRICE_BUCKET_BOUNDS[bucket - 1] + " and above";
+        }
+        return (int) PRICE_BUCKET_BOUNDS[bucket - 1] + " - " + (int) PRICE_BUCKET_BOUNDS[bucket];
+    }
+
+    private static int ratingBucketOf(double rating) {
+        return Math.max(0, Math.min(RATING_BUCKETS - 1, (int) Math.floor(rating)));
+    }
+
+    private static BitSet[] newBitSets(int count) {
+        BitSet[] bitSets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.project.catalog;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+
+/**
+ * Flat copy of the product columns the search index matches and sorts on,
+ * and the facet engine counts on.
+ */
+public record ProductSearchDocument(
+        Long productId,
+        String productName,
+        String description,
+        Long categoryId,
+        String categoryName,
+        double price,
+        double specialPrice,
+        double discount,
+        Integer quantity,
+        Double averageRating,
+        Integer ratingCount,
+        Long sellerId,
+        String sellerName) {
+
+    public static ProductSearchDocument from(Product product) {
+        Category category = product.getCategory();
+        User seller = product.getUser();
+        return new ProductSearchDocument(
+                product.getProductId(),
+                product.getProductName(),
+                product.getDescription(),
+                category != null ? category.getCategoryId() : null,
+                category != null ? category.getCategoryName() : null,
+                product.getPrice(),
+                product.getSpecialPrice(),
+                product.getDiscount(),
+                product.getQuantity(),
+                product.getAverageRating(),
+                product.getRatingCount(),
+                seller != null ? seller.getUserId() : null,
+                seller != null ? seller.getUserName() : null);
+    }
+}
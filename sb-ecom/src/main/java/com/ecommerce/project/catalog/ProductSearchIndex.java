@@ -0,0 +1,303 @@
+package com.ecommerce.project.catalog;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * In-process trigram index over product name, description and category name.
+ * Answers keyword searches with a page of product ids so that only that page
+ * has to be loaded from the database.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int GRAM_SIZE = 3;
+
+    private static final Map<String, Comparator<ProductSearchDocument>> SORTABLE_FIELDS = Map.of(
+            "productId", Comparator.comparing(ProductSearchDocument::productId),
+            "productName", Comparator.comparing(ProductSearchDocument::productName,
+                    Comparator.nullsFirst(Comparator.<String>naturalOrder())),
+            "price", Comparator.comparingDouble(ProductSearchDocument::price),
+            "specialPrice", Comparator.comparingDouble(ProductSearchDocument::specialPrice),
+            "discount", Comparator.comparingDouble(ProductSearchDocument::discount),
+            "quantity", Comparator.comparing(ProductSearchDocument::quantity,
+                    Comparator.nullsFirst(Comparator.<Integer>naturalOrder())),
+            "averageRating", Comparator.comparing(ProductSearchDocument::averageRating,
+                    Comparator.nullsFirst(Comparator.<Double>naturalOrder())),
+            "ratingCount", Comparator.comparing(ProductSearchDocument::ratingCount,
+                    Comparator.nullsFirst(Comparator.<Integer>naturalOrder())));
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              @Value("${catalog.search-index.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        ready = false;
+        entries.clear();
+        postings.clear();
+        List<ProductSearchDocument> documents = productRepository.findAllSearchDocuments();
+        documents.forEach(this::put);
+        ready = true;
+        log.info("Product search index built with {} products and {} grams", entries.size(), postings.size());
+    }
+
+    /**
+     * True when the index is loaded and can order hits by every property of the given sort.
+     */
+    public boolean canServe(Sort sort) {
+        if (!enabled || !ready) {
+            return false;
+        }
+        for (Sort.Order order : sort) {
+            if (!SORTABLE_FIELDS.containsKey(order.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void index(Product product) {
+        if (enabled && product != null && product.getProductId() != null) {
+            index(ProductSearchDocument.from(product));
+        }
+    }
+
+    public synchronized void index(ProductSearchDocument document) {
+        remove(document.productId());
+        put(document);
+    }
+
+    public synchronized void remove(Long productId) {
+        Entry previous = entries.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : previous.grams()) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(productId);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies stock deltas to the indexed quantities without reloading the products, for the
+     * inventory write paths, so listings sorted by quantity stay in order.
+     */
+    public synchronized void adjustStock(Map<Long, Integer> deltas) {
+        if (!enabled) {
+            return;
+        }
+        deltas.forEach((productId, delta) -> entries.computeIfPresent(productId, (id, entry) -> {
+            ProductSearchDocument document = entry.document();
+            int quantity = (document.quantity() != null ? document.quantity() : 0) + delta;
+            return new Entry(new ProductSearchDocument(
+                    document.productId(), document.productName(), document.description(),
+                    document.categoryId(), document.categoryName(), document.price(), document.specialPrice(),
+                    document.discount(), quantity, document.averageRating(),
+                    document.ratingCount(), document.sellerId(), document.sellerName()), entry.text(), entry.grams());
+        }));
+    }
+
+    public synchronized void renameCategory(Long categoryId, String categoryName) {
+        entries.values().stream()
+                .map(Entry::document)
+                .filter(document -> categoryId.equals(document.categoryId()))
+                .toList()
+                .forEach(document -> index(new ProductSearchDocument(
+                        document.productId(), document.productName(), document.description(),
+                        categoryId, categoryName, document.price(), document.specialPrice(),
+                        document.discount(), document.quantity(), document.averageRating(),
+                        document.ratingCount(), document.sellerId(), document.sellerName())));
+    }
+
+    public synchronized void removeCategory(Long categoryId) {
+        entries.values().stream()
+                .map(Entry::document)
+                .filter(document -> categoryId.equals(document.categoryId()))
+                .map(ProductSearchDocument::productId)
+                .toList()
+                .forEach(this::remove);
+    }
+
+    /**
+     * Returns the requested page of matching product ids, ordered by the pageable's sort.
+     * Matching is a case-insensitive substring match, like the {@code LIKE '%kw%'} it replaces.
+     */
+    public Page<Long> search(String keyword, String categoryName, Pageable pageable) {
+        List<ProductSearchDocument> hits = hits(keyword, categoryName);
+        hits.sort(comparator(pageable.getSort()));
+
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        List<Long> ids = hits.subList(from, to).stream()
+                .map(ProductSearchDocument::productId)
+                .toList();
+        return new PageImpl<>(ids, pageable, hits.size());
+    }
+
+    /**
+     * Returns up to {@code limit} matching product ids that come after the cursor position,
+     * ordered by the sort, for keyset pagination over the same matches as {@link #search}.
+     */
+    public List<Long> searchAfter(String keyword, String categoryName, Sort sort,
+                                  Predicate<ProductSearchDocument> after, int limit) {
+        return hits(keyword, categoryName).stream()
+                .filter(after)
+                .sorted(comparator(sort))
+                .limit(limit)
+                .map(ProductSearchDocument::productId)
+                .toList();
+    }
+
+    public int count(String keyword, String categoryName) {
+        return hits(keyword, categoryName).size();
+    }
+
+    /**
+     * Every product id matching the keyword, unordered. Used to scope facet counts to a search.
+     */
+    public Set<Long> matchingIds(String keyword) {
+        String term = normalize(keyword);
+        Set<Long> ids = new HashSet<>();
+        for (Entry entry : candidates(term)) {
+            if (entry.text().contains(term)) {
+                ids.add(entry.document().productId());
+            }
+        }
+        return ids;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    private List<ProductSearchDocument> hits(String keyword, String categoryName) {
+        String term = normalize(keyword);
+        List<ProductSearchDocument> hits = new ArrayList<>();
+        for (Entry entry : candidates(term)) {
+            if (!entry.text().contains(term)) {
+                continue;
+            }
+            if (categoryName != null && !categoryName.isEmpty()
+                    && !categoryName.equals(entry.document().categoryName())) {
+                continue;
+            }
+            hits.add(entry.document());
+        }
+        return hits;
+    }
+
+    private Collection<Entry> candidates(String term) {
+        if (term.length() < GRAM_SIZE) {
+            return entries.values();
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(term)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        List<Entry> result = new ArrayList<>();
+        Set<Long> smallest = lists.get(0);
+        for (Long id : smallest) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++) {
+                inAll = lists.get(i).contains(id);
+            }
+            Entry entry = inAll ? entries.get(id) : null;
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private void put(ProductSearchDocument document) {
+        String text = normalize(document.productName()) + '\n'
+                + normalize(document.description()) + '\n'
+                + normalize(document.categoryName());
+        Set<String> grams = grams(text);
+        entries.put(document.productId(), new Entry(document, text, grams));
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(document.productId());
+        }
+    }
+
+    private static Comparator<ProductSearchDocument> comparator(Sort sort) {
+        Comparator<ProductSearchDocument> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<ProductSearchDocument> next = SORTABLE_FIELDS.get(order.getProperty());
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<ProductSearchDocument> byId = SORTABLE_FIELDS.get("productId");
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            String gram = text.substring(i, i + GRAM_SIZE);
+            if (gram.indexOf('\n') < 0) {
+                grams.add(gram);
+            }
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(ProductSearchDocument document, String text, Set<String> grams) {
+    }
+}
@@ -8,5 +8,7 @@ public class AppConstants {
     public static final String SORT_DIR = "asc";
     public static final String SORT_ORDERS_BY = "totalAmount";
     public static final String SORT_USERS_BY = "userId";
+    public static final String KEYSET_PAGE_SIZE = "50";
+    public static final int MAX_KEYSET_PAGE_SIZE = 500;
 
 }
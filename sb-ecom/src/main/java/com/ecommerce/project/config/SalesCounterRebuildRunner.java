@@ -0,0 +1,27 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.service.ProductSalesCounterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills product_sales_counters from order history when the application is started
+ * with {@code --rebuild-sales-counters}. Needed once after the counters are introduced.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesCounterRebuildRunner implements ApplicationRunner {
+
+    public static final String OPTION = "rebuild-sales-counters";
+
+    private final ProductSalesCounterService productSalesCounterService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(OPTION)) {
+            productSalesCounterService.rebuild();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.service.SellerOrderIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills seller_orders from order history when the application is started with
+ * {@code --rebuild-seller-orders}. Needed once after the index is introduced.
+ */
+@Component
+@RequiredArgsConstructor
+public class SellerOrderIndexRebuildRunner implements ApplicationRunner {
+
+    public static final String OPTION = "rebuild-seller-orders";
+
+    private final SellerOrderIndexService sellerOrderIndexService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(OPTION)) {
+            sellerOrderIndexService.rebuild();
+        }
+    }
+}
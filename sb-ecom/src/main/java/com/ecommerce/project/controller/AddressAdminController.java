@@ -0,0 +1,33 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.service.AddressService;
+import com.ecommerce.project.util.ExportFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/admin/addresses")
+@RequiredArgsConstructor
+public class AddressAdminController {
+
+    private final AddressService addressService;
+
+    @GetMapping("/export")
+    public void exportAddresses(
+            @RequestParam(name = "format", defaultValue = "ndjson", required = false) String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"addresses." + exportFormat.getExtension() + "\"");
+        addressService.exportAddresses(exportFormat, response.getOutputStream());
+    }
+}
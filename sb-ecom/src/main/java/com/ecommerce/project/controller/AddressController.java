@@ -1,7 +1,9 @@
 package com.ecommerce.project.controller;
 
+import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.payload.AddressDTO;
+import com.ecommerce.project.payload.KeysetPageResponse;
 import com.ecommerce.project.service.AddressService;
 import com.ecommerce.project.util.AuthUtil;
 import jakarta.validation.Valid;
@@ -30,11 +32,14 @@ public class AddressController {
         return new ResponseEntity<>(savedAddressDTO, HttpStatus.CREATED);
     }
 
+    //one keyset page at a time in address id order
     @GetMapping("/addresses")
-    public ResponseEntity<List<AddressDTO>> getAddresses() {
-        List<AddressDTO> addressList = addressService.getAddress();
+    public ResponseEntity<KeysetPageResponse<AddressDTO>> getAddresses(
+            @RequestParam(name = "after", defaultValue = "0", required = false) Long after,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.KEYSET_PAGE_SIZE, required = false) Integer pageSize) {
+        KeysetPageResponse<AddressDTO> addressPage = addressService.getAddresses(after, pageSize);
 
-        return new ResponseEntity<>(addressList, HttpStatus.OK);
+        return new ResponseEntity<>(addressPage, HttpStatus.OK);
     }
 
     @GetMapping("/addresses/{addressId}")
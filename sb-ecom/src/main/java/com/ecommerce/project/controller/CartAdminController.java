@@ -0,0 +1,49 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.cart.AbandonedCartSweeper;
+import com.ecommerce.project.payload.cart.CartSweepStats;
+import com.ecommerce.project.service.CartService;
+import com.ecommerce.project.util.ExportFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/admin/carts")
+@RequiredArgsConstructor
+public class CartAdminController {
+
+    private final AbandonedCartSweeper abandonedCartSweeper;
+    private final CartService cartService;
+
+    @GetMapping("/sweeper")
+    public ResponseEntity<CartSweepStats> getSweeperStats() {
+        return ResponseEntity.ok(abandonedCartSweeper.stats());
+    }
+
+    @PostMapping("/sweeper/run")
+    public ResponseEntity<CartSweepStats> runSweeper() {
+        return ResponseEntity.ok(abandonedCartSweeper.sweep());
+    }
+
+    //every cart with its lines, streamed one row per line
+    @GetMapping("/export")
+    public void exportCarts(
+            @RequestParam(name = "format", defaultValue = "ndjson", required = false) String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"carts." + exportFormat.getExtension() + "\"");
+        cartService.exportCarts(exportFormat, response.getOutputStream());
+    }
+}
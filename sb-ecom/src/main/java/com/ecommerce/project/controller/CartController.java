@@ -1,9 +1,10 @@
 package com.ecommerce.project.controller;
 
-import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.payload.CartDTO;
 import com.ecommerce.project.payload.CartItemsDTO;
-import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.payload.KeysetPageResponse;
+import com.ecommerce.project.payload.cart.CartSyncResponse;
 import com.ecommerce.project.service.CartService;
 import com.ecommerce.project.util.AuthUtil;
 import jakarta.persistence.Id;
@@ -18,17 +19,14 @@ import java.util.List;
 @RequestMapping("/api")
 public class CartController {
 
-    @Autowired
-    CartRepository cartRepository;
-
     @Autowired
     private CartService cartService;
     @Autowired
     private AuthUtil authUtil;
 
     @PostMapping("/cart/create")
-    public ResponseEntity<String> createOrUpdateCart(@RequestBody List<CartItemsDTO> cartItems) {
-        String response = cartService.createOrUpdateCartWithItems(cartItems);
+    public ResponseEntity<CartSyncResponse> createOrUpdateCart(@RequestBody List<CartItemsDTO> cartItems) {
+        CartSyncResponse response = cartService.createOrUpdateCartWithItems(cartItems);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
@@ -38,20 +36,20 @@ public class CartController {
         CartDTO cartDTO = cartService.addProductToCart(productId,quantity);
         return new ResponseEntity<>(cartDTO, HttpStatus.CREATED);
     }
-    //fetching all carts
+    //fetching all carts, one keyset page at a time in cart id order
     @GetMapping("/carts")
-    public ResponseEntity<List<CartDTO>> getCarts() {
-        List<CartDTO> cartDTOS = cartService.getAllCarts();
-        return new ResponseEntity<List<CartDTO>>(cartDTOS, HttpStatus.FOUND);
+    public ResponseEntity<KeysetPageResponse<CartDTO>> getCarts(
+            @RequestParam(name = "after", defaultValue = "0", required = false) Long after,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.KEYSET_PAGE_SIZE, required = false) Integer pageSize) {
+        KeysetPageResponse<CartDTO> cartPage = cartService.getCarts(after, pageSize);
+        return new ResponseEntity<>(cartPage, HttpStatus.OK);
     }
 
     //fetching all user
     @GetMapping("/carts/users/cart")
     public ResponseEntity<CartDTO> getCartById() {
         String emailId = authUtil.loggedInEmail();
-        Cart cart = cartRepository.findCartByEmail(emailId);
-        Long cartId = cart.getCartId();
-        CartDTO cartDTO = cartService.getCart(emailId, cartId);
+        CartDTO cartDTO = cartService.getCart(emailId);
         return new ResponseEntity<CartDTO>(cartDTO,HttpStatus.OK);
     }
 
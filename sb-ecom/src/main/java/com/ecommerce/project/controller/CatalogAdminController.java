@@ -0,0 +1,32 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.catalog.ProductCatalogCache;
+import com.ecommerce.project.payload.APIResponse;
+import com.ecommerce.project.payload.catalog.CatalogCacheStats;
+import com.ecommerce.project.service.ProductSalesCounterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/catalog")
+@RequiredArgsConstructor
+public class CatalogAdminController {
+
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductSalesCounterService productSalesCounterService;
+
+    @GetMapping("/cache")
+    public ResponseEntity<CatalogCacheStats> getCacheStats() {
+        return ResponseEntity.ok(productCatalogCache.stats());
+    }
+
+    @PostMapping("/sales-counters/rebuild")
+    public ResponseEntity<APIResponse> rebuildSalesCounters() {
+        int products = productSalesCounterService.rebuild();
+        return ResponseEntity.ok(new APIResponse("Rebuilt sales counters for " + products + " products", true));
+    }
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.inventory.FlashSaleStock;
+import com.ecommerce.project.payload.inventory.FlashSaleStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/flash-sales")
+@RequiredArgsConstructor
+public class FlashSaleAdminController {
+
+    private final FlashSaleStock flashSaleStock;
+
+    @GetMapping
+    public ResponseEntity<List<FlashSaleStatus>> getFlashSales() {
+        return ResponseEntity.ok(flashSaleStock.statuses());
+    }
+
+    @PutMapping("/{productId}")
+    public ResponseEntity<FlashSaleStatus> startFlashSale(@PathVariable Long productId) {
+        return new ResponseEntity<>(flashSaleStock.start(productId), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/{productId}")
+    public ResponseEntity<Void> stopFlashSale(@PathVariable Long productId) {
+        flashSaleStock.stop(productId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -2,18 +2,26 @@ package com.ecommerce.project.controller;
 
 import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.payload.*;
+import com.ecommerce.project.payload.order.BulkOrderStatusRequest;
+import com.ecommerce.project.payload.order.BulkOrderStatusResponse;
 import com.ecommerce.project.security.services.UserDetailsImpl;
+import com.ecommerce.project.service.BulkOrderStatusService;
+import com.ecommerce.project.service.IdempotencyService;
 import com.ecommerce.project.service.OrderService;
 import com.ecommerce.project.service.StripeService;
 import com.ecommerce.project.util.AuthUtil;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.function.Supplier;
+
 @RestController
 @RequestMapping("/api")
 public class OrderController {
@@ -27,11 +35,18 @@ public class OrderController {
     @Autowired
     private StripeService stripeService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BulkOrderStatusService bulkOrderStatusService;
+
     @PostMapping("/order/users/payments/{paymentMethod}")
     public ResponseEntity<OrderDTO> orderProducts(@PathVariable String paymentMethod,
-                                                  @RequestBody OrderRequestDTO orderRequestDTO) {
+                                                  @RequestBody OrderRequestDTO orderRequestDTO,
+                                                  @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
         String emailId = authUtil.loggedInEmail();
-        OrderDTO order = orderService.placeOrder(
+        Supplier<OrderDTO> placeOrder = () -> orderService.placeOrder(
                 emailId,
                 orderRequestDTO.getAddressId(),
                 paymentMethod,
@@ -40,6 +55,11 @@ public class OrderController {
                 orderRequestDTO.getPgStatus(),
                 orderRequestDTO.getPgResponseMessage()
         );
+        //a retried request with the same key gets the first order back instead of placing another
+        OrderDTO order = idempotencyKey == null
+                ? placeOrder.get()
+                : idempotencyService.execute(emailId, idempotencyKey, List.of(paymentMethod, orderRequestDTO),
+                        OrderDTO.class, placeOrder);
         return new ResponseEntity<>(order, HttpStatus.CREATED);
     }
     @PostMapping("/order/stripe-client-secret")
@@ -85,4 +105,16 @@ public class OrderController {
         OrderDTO order = orderService.updateOrder(orderId, orderStatusUpdateDto.getStatus());
         return new ResponseEntity<OrderDTO>(order, HttpStatus.OK);
     }
+
+    @PutMapping("/admin/orders/status")
+    public ResponseEntity<BulkOrderStatusResponse> updateOrderStatuses(@Valid @RequestBody BulkOrderStatusRequest request) {
+        BulkOrderStatusResponse response = bulkOrderStatusService.apply(request.getChanges(), null);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @PutMapping("/seller/orders/status")
+    public ResponseEntity<BulkOrderStatusResponse> updateOrderStatusesSeller(@Valid @RequestBody BulkOrderStatusRequest request) {
+        BulkOrderStatusResponse response = bulkOrderStatusService.apply(request.getChanges(), authUtil.loggedInUserId());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
 }
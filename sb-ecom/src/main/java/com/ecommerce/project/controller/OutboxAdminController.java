@@ -0,0 +1,24 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.outbox.OutboxDispatcher;
+import com.ecommerce.project.payload.outbox.OutboxHandlerStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/outbox")
+@RequiredArgsConstructor
+public class OutboxAdminController {
+
+    private final OutboxDispatcher outboxDispatcher;
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<OutboxHandlerStats>> getStats() {
+        return ResponseEntity.ok(outboxDispatcher.stats());
+    }
+}
@@ -3,11 +3,17 @@ package com.ecommerce.project.controller;
 import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.payload.ProductDetailResponse;
+import com.ecommerce.project.payload.ProductFacetResponse;
 import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.payload.seller.ProductImportReport;
+import com.ecommerce.project.service.ProductImportService;
 import com.ecommerce.project.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -21,6 +27,9 @@ public class ProductController {
     @Autowired
     ProductService productService;
 
+    @Autowired
+    ProductImportService productImportService;
+
     @PostMapping("/admin/categories/{categoryId}/product")
     public ResponseEntity<ProductDTO> addProduct(@Valid @RequestBody ProductDTO productDTO,
                                                  @PathVariable Long categoryId){
@@ -36,6 +45,16 @@ public class ProductController {
         return new ResponseEntity<>(savedProductDTO, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/seller/products/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportReport> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                              HttpServletRequest request) throws IOException {
+        //the body is read as a stream, rows are handled as they arrive
+        ProductImportReport report = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? productImportService.importCsv(request.getInputStream())
+                : productImportService.importNdjson(request.getInputStream());
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
     @GetMapping("/public/products")
     public ResponseEntity<ProductResponse> getAllProducts(
             @RequestParam(name = "keyword", required = false) String keyword,
@@ -43,9 +62,14 @@ public class ProductController {
             @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
             @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
             @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
-            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "withTotal", defaultValue = "false", required = false) boolean withTotal
     ){
-        ProductResponse productResponse = productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder, keyword, category);
+        //"after" switches to cursor mode, an empty value starts from the first page
+        ProductResponse productResponse = after != null
+                ? productService.getAllProductsAfter(after, pageSize, sortBy, sortOrder, keyword, category, withTotal)
+                : productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder, keyword, category);
         return new ResponseEntity<>(productResponse,HttpStatus.OK);
     }
 
@@ -54,8 +78,12 @@ public class ProductController {
                                                                  @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
                                                                  @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
                                                                  @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
-                                                                 @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder){
-        ProductResponse productResponse = productService.searchByCategory(categoryId, pageNumber, pageSize, sortBy, sortOrder);
+                                                                 @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder,
+                                                                 @RequestParam(name = "after", required = false) String after,
+                                                                 @RequestParam(name = "withTotal", defaultValue = "false", required = false) boolean withTotal){
+        ProductResponse productResponse = after != null
+                ? productService.searchByCategoryAfter(categoryId, after, pageSize, sortBy, sortOrder, withTotal)
+                : productService.searchByCategory(categoryId, pageNumber, pageSize, sortBy, sortOrder);
         return new ResponseEntity<>(productResponse, HttpStatus.OK);
     }
 
@@ -69,6 +97,24 @@ public class ProductController {
         return new ResponseEntity<>(productResponse, HttpStatus.FOUND);
     }
 
+    @GetMapping("/public/products/facets")
+    public ResponseEntity<ProductFacetResponse> getFacetedProducts(
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "categoryId", required = false) Long categoryId,
+            @RequestParam(name = "sellerId", required = false) Long sellerId,
+            @RequestParam(name = "priceBucket", required = false) Integer priceBucket,
+            @RequestParam(name = "minRating", required = false) Integer minRating,
+            @RequestParam(name = "inStock", defaultValue = "false", required = false) boolean inStock,
+            @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder
+    ){
+        ProductFacetResponse productResponse = productService.getFacetedProducts(keyword, categoryId, sellerId,
+                priceBucket, minRating, inStock, pageNumber, pageSize, sortBy, sortOrder);
+        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+    }
+
     @GetMapping("/public/products/{productId}")
     public ResponseEntity<ProductDetailResponse> getProductDetail(@PathVariable Long productId) {
         return ResponseEntity.ok(productService.getProductDetail(productId));
@@ -0,0 +1,58 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.service.RecommendationExportService;
+import com.ecommerce.project.util.ExportFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Training data for the recommendation pipeline. Pass the X-Export-Watermark header of one
+ * export as {@code since} of the next to only receive orders placed in between. Consecutive
+ * exports overlap a little, so the consumer has to de-duplicate rows.
+ */
+@RestController
+@RequestMapping("/api/admin/exports")
+@RequiredArgsConstructor
+public class RecommendationExportController {
+
+    public static final String WATERMARK_HEADER = "X-Export-Watermark";
+
+    private final RecommendationExportService recommendationExportService;
+
+    @GetMapping("/transaction-fpgrowth")
+    public void exportTransactions(
+            @RequestParam(name = "format", defaultValue = "csv", required = false) String format,
+            @RequestParam(name = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        prepare(response, exportFormat, "transaction_fpgrowth");
+        recommendationExportService.exportTransactions(exportFormat, since, response.getOutputStream());
+    }
+
+    @GetMapping("/user-item-dl")
+    public void exportUserItems(
+            @RequestParam(name = "format", defaultValue = "csv", required = false) String format,
+            @RequestParam(name = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        prepare(response, exportFormat, "user_item_dl");
+        recommendationExportService.exportUserItems(exportFormat, since, response.getOutputStream());
+    }
+
+    private void prepare(HttpServletResponse response, ExportFormat format, String dataset) {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + dataset + "." + format.getExtension() + "\"");
+        response.setHeader(WATERMARK_HEADER, recommendationExportService.currentWatermark().toString());
+    }
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.project.controller;
 
+import com.ecommerce.project.payload.order.StockReservationResponse;
+import com.ecommerce.project.payload.order.UserOrderCursorResponse;
 import com.ecommerce.project.payload.order.UserOrderDetailResponse;
 import com.ecommerce.project.payload.order.UserOrderSummary;
 import com.ecommerce.project.service.UserOrderService;
@@ -8,6 +10,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -32,6 +35,16 @@ public class UserOrderController {
         return ResponseEntity.ok(userOrderService.getCurrentUserOrders(pageable));
     }
 
+    //"after" switches to cursor mode in placement order, an empty value starts from the first page
+    @GetMapping(params = "after")
+    public ResponseEntity<UserOrderCursorResponse> listOrdersAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "DESC") String direction
+    ) {
+        return ResponseEntity.ok(userOrderService.getCurrentUserOrdersAfter(after, size, "ASC".equalsIgnoreCase(direction)));
+    }
+
     @GetMapping("/{orderId}")
     public ResponseEntity<UserOrderDetailResponse> getOrder(@PathVariable Long orderId) {
         return ResponseEntity.ok(userOrderService.getOrderDetail(orderId));
@@ -41,5 +54,17 @@ public class UserOrderController {
     public ResponseEntity<UserOrderDetailResponse> cancelOrder(@PathVariable Long orderId) {
         return ResponseEntity.ok(userOrderService.cancelOrder(orderId));
     }
-}
 
+    //holds the stock of the current cart while the user pays, placing the order confirms it
+    @PostMapping("/reservation")
+    public ResponseEntity<StockReservationResponse> reserveCart() {
+        return new ResponseEntity<>(userOrderService.reserveCart(), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/reservation")
+    public ResponseEntity<Void> cancelReservation() {
+        return userOrderService.cancelCartReservation()
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
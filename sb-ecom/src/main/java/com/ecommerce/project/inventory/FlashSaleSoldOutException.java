@@ -0,0 +1,20 @@
+package com.ecommerce.project.inventory;
+
+import com.ecommerce.project.exceptions.APIException;
+
+/**
+ * A flash-sale product does not have the units asked for. Nothing was taken.
+ */
+public class FlashSaleSoldOutException extends APIException {
+
+    private final Long productId;
+
+    public FlashSaleSoldOutException(Long productId) {
+        super("Product " + productId + " is sold out");
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
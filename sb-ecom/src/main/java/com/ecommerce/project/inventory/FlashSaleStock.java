@@ -0,0 +1,266 @@
+package com.ecommerce.project.inventory;
+
+import com.ecommerce.project.catalog.ProductCatalogCache;
+import com.ecommerce.project.catalog.ProductFacetEngine;
+import com.ecommerce.project.catalog.ProductSearchIndex;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.model.FlashSale;
+import com.ecommerce.project.payload.inventory.FlashSaleStatus;
+import com.ecommerce.project.repositories.FlashSaleRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock of the products in flash-sale mode, granted from {@link StripedStock} counters instead
+ * of the products row, so a sold-out product is rejected at once and buyers never queue on its
+ * row lock. A reconciler writes the units sold since its last run to products.quantity as one
+ * delta per product, and folds edits made to the row in the meantime (a restock) back into the
+ * counters. A stopped sale keeps being reconciled for one more interval so that grants still
+ * in flight are accounted for.
+ * The counters live in this process: run flash sales on one instance, and expect
+ * products.quantity to overstate stock by the last interval's sales after an unclean stop.
+ */
+@Component
+public class FlashSaleStock {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashSaleStock.class);
+
+    private static final String APPLY_SOLD =
+            "update products set quantity = quantity - ? where product_id = ? returning quantity";
+    private static final String RETURN_STOCK =
+            "update products set quantity = quantity + ? where product_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FlashSaleRepository flashSaleRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductFacetEngine productFacetEngine;
+    private final ProductSearchIndex productSearchIndex;
+    private final int stripeCount;
+    private final long reconcileIntervalNanos;
+
+    private final Map<Long, StripedStock> stocks = new ConcurrentHashMap<>();
+    private final Map<Long, Long> closedAt = new ConcurrentHashMap<>();
+
+    public FlashSaleStock(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          FlashSaleRepository flashSaleRepository,
+                          ProductCatalogCache productCatalogCache,
+                          ProductFacetEngine productFacetEngine,
+                          ProductSearchIndex productSearchIndex,
+                          @Value("${inventory.flash-sale.stripes:16}") int stripeCount,
+                          @Value("${inventory.flash-sale.reconcile-interval-ms:1000}") long reconcileIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flashSaleRepository = flashSaleRepository;
+        this.productCatalogCache = productCatalogCache;
+        this.productFacetEngine = productFacetEngine;
+        this.productSearchIndex = productSearchIndex;
+        this.stripeCount = Math.max(1, stripeCount);
+        this.reconcileIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reconcileIntervalMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (FlashSale sale : flashSaleRepository.findAll()) {
+            Integer quantity = currentQuantity(sale.getProductId());
+            if (quantity != null) {
+                stocks.put(sale.getProductId(), new StripedStock(stripeCount, quantity));
+            }
+        }
+        if (!stocks.isEmpty()) {
+            log.info("Flash sale counters loaded for products {}", stocks.keySet());
+        }
+    }
+
+    /**
+     * @return units on sale, or null when the product is not in flash-sale mode
+     */
+    public Integer available(Long productId) {
+        StripedStock stock = stocks.get(productId);
+        return stock == null || stock.isClosed() ? null : stock.available();
+    }
+
+    /**
+     * Takes the lines of flash-sale products off their counters, all or nothing. The other
+     * lines are left to the caller.
+     *
+     * @return the lines taken
+     * @throws FlashSaleSoldOutException when one of the flash-sale lines is not available
+     */
+    public Map<Long, Integer> take(Map<Long, Integer> quantities) {
+        Map<Long, Integer> taken = new HashMap<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            StripedStock stock = stocks.get(line.getKey());
+            if (stock == null || stock.isClosed()) {
+                continue;
+            }
+            if (!stock.take(line.getValue())) {
+                giveBack(taken);
+                throw new FlashSaleSoldOutException(line.getKey());
+            }
+            if (stock.isClosed()) {
+                //stopped meanwhile, the reconciler still counts this stock, the row takes the line
+                stock.add(line.getValue());
+                continue;
+            }
+            taken.put(line.getKey(), line.getValue());
+        }
+        return taken;
+    }
+
+    /**
+     * Puts units back on their counters. Products whose sale has ended get them back on the row.
+     */
+    public void giveBack(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> {
+            StripedStock stock = stocks.get(productId);
+            if (stock != null) {
+                stock.add(quantity);
+            } else {
+                jdbcTemplate.update(RETURN_STOCK, quantity, productId);
+                productCatalogCache.evict(productId);
+            }
+        });
+    }
+
+    public FlashSaleStatus start(Long productId) {
+        StripedStock existing = stocks.get(productId);
+        if (existing != null && !existing.isClosed()) {
+            throw new APIException("Product " + productId + " is already in a flash sale");
+        }
+        if (existing != null) {
+            throw new APIException("The flash sale of product " + productId + " is still closing, try again shortly");
+        }
+        Integer quantity = currentQuantity(productId);
+        if (quantity == null) {
+            throw new ResourceNotFoundException("Product", "productId", productId);
+        }
+        flashSaleRepository.save(new FlashSale(productId, LocalDateTime.now()));
+        //edits to the row between the read above and now are picked up by the next reconcile
+        stocks.put(productId, new StripedStock(stripeCount, quantity));
+        log.info("Flash sale started for product {} with {} units", productId, quantity);
+        return status(productId);
+    }
+
+    public void stop(Long productId) {
+        StripedStock stock = stocks.get(productId);
+        if (stock == null || stock.isClosed()) {
+            throw new ResourceNotFoundException("FlashSale", "productId", productId);
+        }
+        flashSaleRepository.deleteById(productId);
+        stock.close();
+        closedAt.put(productId, System.nanoTime());
+        reconcile();
+        log.info("Flash sale stopped for product {}", productId);
+    }
+
+    public List<FlashSaleStatus> statuses() {
+        List<FlashSaleStatus> statuses = new ArrayList<>();
+        stocks.keySet().forEach(productId -> statuses.add(status(productId)));
+        return statuses;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.flash-sale.reconcile-interval-ms:1000}")
+    public synchronized void reconcile() {
+        long now = System.nanoTime();
+        Map<Long, Integer> sold = new HashMap<>();
+        for (Map.Entry<Long, StripedStock> entry : stocks.entrySet()) {
+            Long productId = entry.getKey();
+            StripedStock stock = entry.getValue();
+            try {
+                long delta = reconcile(productId, stock);
+                if (delta != 0) {
+                    sold.put(productId, (int) -delta);
+                }
+            } catch (RuntimeException e) {
+                log.error("Flash sale reconciliation failed for product {}", productId, e);
+                continue;
+            }
+            Long closed = closedAt.get(productId);
+            if (closed != null && now - closed > reconcileIntervalNanos) {
+                stocks.remove(productId);
+                closedAt.remove(productId);
+            }
+        }
+        if (!sold.isEmpty()) {
+            sold.keySet().forEach(productCatalogCache::evict);
+            productFacetEngine.adjustStock(sold);
+            productSearchIndex.adjustStock(sold);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        reconcile();
+    }
+
+    /**
+     * @return units sold since the last run, negative when more came back than went out
+     */
+    private long reconcile(Long productId, StripedStock stock) {
+        int available = stock.available();
+        long sold = stock.base() - available;
+        if (stock.isClosed()) {
+            //the row is authoritative again, only hand over what the counters still owe it
+            if (sold != 0) {
+                transactionTemplate.execute(status -> jdbcTemplate.queryForList(APPLY_SOLD, Integer.class, sold, productId));
+                stock.base(available);
+            }
+            return sold;
+        }
+
+        List<Integer> rows = transactionTemplate.execute(status ->
+                jdbcTemplate.queryForList(APPLY_SOLD, Integer.class, sold, productId));
+        if (rows == null || rows.isEmpty()) {
+            //the product is gone, nothing left to sell
+            stock.close();
+            closedAt.putIfAbsent(productId, System.nanoTime());
+            stock.base(available);
+            return sold;
+        }
+        //anything the row holds beyond the counters was added to it directly, and the reverse
+        long edited = rows.get(0) - (long) available;
+        long applied = edited > 0 ? edited : -stock.takeUpTo((int) Math.min(Integer.MAX_VALUE, -edited));
+        if (applied > 0) {
+            stock.add((int) Math.min(Integer.MAX_VALUE, applied));
+        }
+        stock.base(available + applied);
+        return sold;
+    }
+
+    private FlashSaleStatus status(Long productId) {
+        StripedStock stock = stocks.get(productId);
+        return FlashSaleStatus.builder()
+                .productId(productId)
+                .available(stock != null ? stock.available() : 0)
+                .closing(stock == null || stock.isClosed())
+                .build();
+    }
+
+    private Integer currentQuantity(Long productId) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "select quantity from products where product_id = ?", Integer.class, productId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
@@ -0,0 +1,99 @@
+package com.ecommerce.project.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Units of one product spread over independent counters. A buyer starts at a random stripe
+ * and moves on when it runs dry, so concurrent checkouts rarely touch the same counter and
+ * never wait on each other.
+ */
+final class StripedStock {
+
+    private final AtomicInteger[] stripes;
+    private volatile boolean closed;
+
+    //units the database is known to hold, only read and written by the reconciler
+    private long base;
+
+    StripedStock(int stripeCount, int quantity) {
+        stripes = new AtomicInteger[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            //the first stripes get the remainder
+            stripes[i] = new AtomicInteger(quantity / stripeCount + (i < quantity % stripeCount ? 1 : 0));
+        }
+        base = quantity;
+    }
+
+    /**
+     * Takes all of the units or none of them.
+     */
+    boolean take(int quantity) {
+        int start = ThreadLocalRandom.current().nextInt(stripes.length);
+        int remaining = quantity;
+        for (int i = 0; i < stripes.length && remaining > 0; i++) {
+            remaining -= drain(stripes[(start + i) % stripes.length], remaining);
+        }
+        if (remaining > 0) {
+            add(quantity - remaining);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Takes up to the given number of units.
+     *
+     * @return the units taken
+     */
+    int takeUpTo(int quantity) {
+        int taken = 0;
+        for (int i = 0; i < stripes.length && taken < quantity; i++) {
+            taken += drain(stripes[i], quantity - taken);
+        }
+        return taken;
+    }
+
+    void add(int quantity) {
+        if (quantity > 0) {
+            stripes[ThreadLocalRandom.current().nextInt(stripes.length)].addAndGet(quantity);
+        }
+    }
+
+    int available() {
+        int total = 0;
+        for (AtomicInteger stripe : stripes) {
+            total += stripe.get();
+        }
+        return total;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    long base() {
+        return base;
+    }
+
+    void base(long base) {
+        this.base = base;
+    }
+
+    private static int drain(AtomicInteger stripe, int wanted) {
+        while (true) {
+            int current = stripe.get();
+            if (current <= 0) {
+                return 0;
+            }
+            int granted = Math.min(current, wanted);
+            if (stripe.compareAndSet(current, current - granted)) {
+                return granted;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Payment;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.AddressDTO;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderItemDTO;
+import com.ecommerce.project.payload.PaymentDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand written field copies producing the same output as {@link ModelMapperDtoMapper},
+ * without ModelMapper's reflective type map matching.
+ */
+@Component
+@ConditionalOnProperty(name = "mapping.dto-mapper", havingValue = "compiled", matchIfMissing = true)
+public class CompiledDtoMapper implements DtoMapper {
+
+    @Override
+    public ProductDTO toProductDto(Product product) {
+        if (product == null) {
+            return null;
+        }
+        ProductDTO dto = new ProductDTO();
+        dto.setProductId(product.getProductId());
+        dto.setProductName(product.getProductName());
+        dto.setImage(product.getImage());
+        dto.setDescription(product.getDescription());
+        dto.setDetailDescription(product.getDetailDescription());
+        dto.setQuantity(product.getQuantity());
+        dto.setPrice(product.getPrice());
+        dto.setDiscount(product.getDiscount());
+        dto.setSpecialPrice(product.getSpecialPrice());
+        dto.setAverageRating(product.getAverageRating());
+        dto.setRatingCount(product.getRatingCount());
+        return dto;
+    }
+
+    @Override
+    public CartDTO toCartDto(Cart cart) {
+        if (cart == null) {
+            return null;
+        }
+        // products is filled in by the caller, ModelMapper finds no source for it either
+        CartDTO dto = new CartDTO();
+        dto.setCartId(cart.getCartId());
+        dto.setTotalPrice(cart.getTotalPrice());
+        return dto;
+    }
+
+    @Override
+    public OrderDTO toOrderDto(Order order) {
+        if (order == null) {
+            return null;
+        }
+        OrderDTO dto = new OrderDTO();
+        dto.setOrderId(order.getOrderId());
+        dto.setEmail(order.getEmail());
+        dto.setOrderDate(order.getOrderDate());
+        dto.setPayment(toPaymentDto(order.getPayment()));
+        dto.setTotalAmount(order.getTotalAmount());
+        dto.setTaxAmount(order.getTaxAmount());
+        dto.setTotalAmountAfterTax(order.getTotalAmountAfterTax());
+        dto.setOrderStatus(order.getOrderStatus());
+        dto.setAddressId(order.getAddress() != null ? order.getAddress().getAddressId() : null);
+
+        List<OrderItem> orderItems = order.getOrderItems();
+        if (orderItems != null) {
+            // must stay mutable, placeOrder appends the saved items to it
+            List<OrderItemDTO> itemDTOs = new ArrayList<>(orderItems.size());
+            for (OrderItem orderItem : orderItems) {
+                itemDTOs.add(toOrderItemDto(orderItem));
+            }
+            dto.setOrderItems(itemDTOs);
+        }
+        return dto;
+    }
+
+    @Override
+    public OrderItemDTO toOrderItemDto(OrderItem orderItem) {
+        if (orderItem == null) {
+            return null;
+        }
+        // orderedProductPrice is left unset: ModelMapper cannot match it to orderProductPrice
+        OrderItemDTO dto = new OrderItemDTO();
+        dto.setOrderItemId(orderItem.getOrderItemId());
+        dto.setProduct(toProductDto(orderItem.getProduct()));
+        dto.setQuantity(orderItem.getQuantity());
+        dto.setDiscount(orderItem.getDiscount());
+        dto.setTaxAmount(orderItem.getTaxAmount());
+        dto.setItemTotalAfterTax(orderItem.getItemTotalAfterTax());
+        return dto;
+    }
+
+    @Override
+    public AddressDTO toAddressDto(Address address) {
+        if (address == null) {
+            return null;
+        }
+        AddressDTO dto = new AddressDTO();
+        dto.setAddressId(address.getAddressId());
+        dto.setStreet(address.getStreet());
+        dto.setBuildingName(address.getBuildingName());
+        dto.setCity(address.getCity());
+        dto.setState(address.getState());
+        dto.setCountry(address.getCountry());
+        dto.setPincode(address.getPincode());
+        return dto;
+    }
+
+    private PaymentDTO toPaymentDto(Payment payment) {
+        if (payment == null) {
+            return null;
+        }
+        PaymentDTO dto = new PaymentDTO();
+        dto.setPaymentId(payment.getPaymentId());
+        dto.setPaymentMethod(payment.getPaymentMethod());
+        dto.setPgPaymentId(payment.getPgPaymentId());
+        dto.setPgStatus(payment.getPgStatus());
+        dto.setPgResponseMessage(payment.getPgResponseMessage());
+        dto.setPgName(payment.getPgName());
+        return dto;
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.AddressDTO;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderItemDTO;
+import com.ecommerce.project.payload.ProductDTO;
+
+/**
+ * Entity to DTO mapping for the response hot paths. The implementation is picked with
+ * {@code mapping.dto-mapper}: {@code compiled} (default) or {@code modelmapper}.
+ */
+public interface DtoMapper {
+
+    ProductDTO toProductDto(Product product);
+
+    CartDTO toCartDto(Cart cart);
+
+    OrderDTO toOrderDto(Order order);
+
+    OrderItemDTO toOrderItemDto(OrderItem orderItem);
+
+    AddressDTO toAddressDto(Address address);
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.AddressDTO;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderItemDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "mapping.dto-mapper", havingValue = "modelmapper")
+public class ModelMapperDtoMapper implements DtoMapper {
+
+    private final ModelMapper modelMapper;
+
+    public ModelMapperDtoMapper(ModelMapper modelMapper) {
+        this.modelMapper = modelMapper;
+    }
+
+    @Override
+    public ProductDTO toProductDto(Product product) {
+        return modelMapper.map(product, ProductDTO.class);
+    }
+
+    @Override
+    public CartDTO toCartDto(Cart cart) {
+        return modelMapper.map(cart, CartDTO.class);
+    }
+
+    @Override
+    public OrderDTO toOrderDto(Order order) {
+        return modelMapper.map(order, OrderDTO.class);
+    }
+
+    @Override
+    public OrderItemDTO toOrderItemDto(OrderItem orderItem) {
+        return modelMapper.map(orderItem, OrderItemDTO.class);
+    }
+
+    @Override
+    public AddressDTO toAddressDto(Address address) {
+        return modelMapper.map(address, AddressDTO.class);
+    }
+}
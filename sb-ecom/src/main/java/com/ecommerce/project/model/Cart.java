@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,4 +29,13 @@ public class Cart {
     private List<CartItem> cartItems = new ArrayList<>();
 
     private Double totalPrice = 0.0;
+
+    //bumped by every write of the cart, the cart store only writes over the version it read
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    //last write of the cart's lines, carts idle past cart.sweeper.idle-days are swept
+    @Column(name = "updated_at", columnDefinition = "timestamp default now()")
+    private LocalDateTime updatedAt;
 }
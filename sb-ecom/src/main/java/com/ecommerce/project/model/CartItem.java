@@ -28,4 +28,8 @@ public class CartItem {
     private Double discount;
     private Double productPrice;
 
+    //products.price_version the line was priced at
+    @Column(name = "price_version", nullable = false, columnDefinition = "bigint default 0")
+    private long priceVersion;
+
 }
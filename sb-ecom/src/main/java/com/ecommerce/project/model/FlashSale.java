@@ -0,0 +1,27 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product in flash-sale mode. While the row exists its stock is granted from memory by
+ * {@code FlashSaleStock} and products.quantity trails it by one reconciliation interval.
+ */
+@Entity
+@Data
+@Table(name = "flash_sales")
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashSale {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Result of a request made with an {@code Idempotency-Key} header, kept until it expires so a
+ * retry of the same request gets the stored response instead of running again.
+ */
+@Entity
+@Data
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = "idx_idempotency_keys_expires", columnList = "expires_at"))
+@IdClass(IdempotencyRecord.Key.class)
+@NoArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "scope", length = 100)
+    private String scope; // the caller, keys are only unique per user
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String scope;
+        private String idempotencyKey;
+    }
+}
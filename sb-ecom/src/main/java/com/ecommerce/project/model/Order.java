@@ -11,7 +11,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders",
+        indexes = @Index(name = "idx_orders_user_order", columnList = "user_id, order_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
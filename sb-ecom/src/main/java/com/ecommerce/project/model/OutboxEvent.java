@@ -0,0 +1,61 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One delivery of a domain event to one outbox handler. Rows are written in the transaction
+ * that produced the event and processed by {@code OutboxDispatcher} after it commits.
+ */
+@Entity
+@Data
+@Table(name = "outbox_events",
+        indexes = {
+                @Index(name = "idx_outbox_events_pending", columnList = "processed_at, available_at, id"),
+                @Index(name = "idx_outbox_events_handler", columnList = "handler, processed_at")
+        })
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "handler", nullable = false, length = 100)
+    private String handler;
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    //set when the delivery gave up after outbox.max-attempts, the row is kept for inspection
+    @Column(name = "dead_at")
+    private LocalDateTime deadAt;
+}
@@ -32,26 +32,32 @@ public class Product {
     @Column(name = "detail_description", columnDefinition = "TEXT")
     private String detailDescription; // Rich text HTML description with images
     
+    //written by InventoryService over jdbc only, an entity save must not overwrite a concurrent decrement
+    @Column(updatable = false)
     private Integer quantity;
     private double price;
     private double discount;
     private double specialPrice; //gia sau khi discount
 
+    //bumped in the database whenever the special price changes, cart lines keep the version they were priced at
+    @Column(name = "price_version", nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long priceVersion;
+
     @Column(name = "average_rating")
     private Double averageRating = 0.0;
 
     @Column(name = "rating_count")
     private Integer ratingCount = 0;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="category_id")
     private Category category;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "seller_id")
     private User user;
 
-    @OneToMany(mappedBy = "product", cascade = {CascadeType.PERSIST,CascadeType.MERGE}, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "product", cascade = {CascadeType.PERSIST,CascadeType.MERGE})
     private List<CartItem> products = new ArrayList<>();
 
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -0,0 +1,25 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Units sold per product, net of cancelled orders. Kept up to date by order placement and
+ * cancellation, and recomputable from order history with {@code ProductSalesCounterService.rebuild()}.
+ */
+@Entity
+@Data
+@Table(name = "product_sales_counters")
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesCounter {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "units_sold", nullable = false)
+    private long unitsSold;
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One row per seller with products on an order, carrying the order columns sellers sort by,
+ * so a seller's order list is paged and counted from this table alone. Written at checkout
+ * and recomputable from order history with {@code SellerOrderIndexService.rebuild()}.
+ */
+@Entity
+@Data
+@Table(name = "seller_orders",
+        indexes = {
+                @Index(name = "idx_seller_orders_seller_total", columnList = "seller_id, total_amount"),
+                @Index(name = "idx_seller_orders_seller_placed", columnList = "seller_id, placed_at"),
+                @Index(name = "idx_seller_orders_seller_date", columnList = "seller_id, order_date")
+        })
+@IdClass(SellerOrder.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellerOrder {
+
+    @Id
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "order_date")
+    private LocalDate orderDate;
+
+    @Column(name = "placed_at")
+    private LocalDateTime placedAt;
+
+    @Column(name = "total_amount")
+    private Double totalAmount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long sellerId;
+        private Long orderId;
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stock set aside for a user before the order is placed. The units are already taken off
+ * products.quantity; placing the order confirms the hold, cancelling it or letting it expire
+ * puts them back.
+ */
+@Entity
+@Data
+@Table(name = "stock_reservations",
+        indexes = {
+                @Index(name = "idx_stock_reservations_user_status", columnList = "user_id, status"),
+                @Index(name = "idx_stock_reservations_status_expires", columnList = "status, expires_at"),
+                @Index(name = "idx_stock_reservations_order", columnList = "order_id")
+        })
+@NoArgsConstructor
+public class StockReservation {
+
+    public static final String HELD = "HELD";
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String RELEASED = "RELEASED";
+    public static final String EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "stock_reservation_lines", joinColumns = @JoinColumn(name = "reservation_id"))
+    private List<StockReservationLine> lines = new ArrayList<>();
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.project.order;
+
+import com.ecommerce.project.exceptions.APIException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a user's order history. Order ids are issued in placement order, so the
+ * id of the last order served is the whole key. Travels to the client as an opaque base64 token.
+ */
+public record OrderCursor(boolean ascending, Long orderId) {
+
+    private static final String SEPARATOR = "|";
+
+    public static OrderCursor decode(String token, boolean ascending) {
+        OrderCursor cursor;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 2);
+            cursor = new OrderCursor("asc".equals(parts[0]), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new APIException("Invalid cursor");
+        }
+        if (cursor.ascending() != ascending) {
+            throw new APIException("Cursor does not match the requested sort order");
+        }
+        return cursor;
+    }
+
+    public String encode() {
+        String raw = (ascending ? "asc" : "desc") + SEPARATOR + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
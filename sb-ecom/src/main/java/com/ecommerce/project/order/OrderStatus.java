@@ -0,0 +1,41 @@
+package com.ecommerce.project.order;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Order lifecycle for bulk transitions. An order moves forward only; a cancelled or delivered
+ * order stays where it is.
+ */
+public enum OrderStatus {
+    PENDING,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED;
+
+    public Set<OrderStatus> next() {
+        return switch (this) {
+            case PENDING -> Set.of(SHIPPED, CANCELLED);
+            case SHIPPED -> Set.of(DELIVERED);
+            case DELIVERED, CANCELLED -> Set.of();
+        };
+    }
+
+    public boolean canMoveTo(OrderStatus target) {
+        return next().contains(target);
+    }
+
+    /**
+     * @return the status, or null for a value outside the lifecycle
+     */
+    public static OrderStatus parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
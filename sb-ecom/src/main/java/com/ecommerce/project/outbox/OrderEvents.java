@@ -0,0 +1,22 @@
+package com.ecommerce.project.outbox;
+
+import java.util.Map;
+
+/**
+ * Order lifecycle events published through the outbox.
+ */
+public final class OrderEvents {
+
+    public static final String ORDER_PLACED = "ORDER_PLACED";
+    public static final String ORDER_CANCELLED = "ORDER_CANCELLED";
+    public static final String ORDER_REOPENED = "ORDER_REOPENED";
+
+    private OrderEvents() {
+    }
+
+    /**
+     * Payload of every order event: the units per product on the order.
+     */
+    public record OrderLines(Long orderId, Map<Long, Integer> quantities) {
+    }
+}
@@ -0,0 +1,340 @@
+package com.ecommerce.project.outbox;
+
+import com.ecommerce.project.payload.outbox.OutboxHandlerStats;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains outbox_events into the registered {@link OutboxHandler}s. A poller claims due rows
+ * with a lease and hands each one to a virtual thread; a delivery that fails is retried with
+ * exponential backoff, and one whose worker died is picked up again when its lease runs out.
+ * A delivery only commits while its lease is still on the row, so an event re-claimed after a
+ * slow delivery is handled once; after {@code outbox.max-attempts} the event is dead-lettered.
+ * Publishing transactions wake the poller after commit, so a quiet outbox costs one poll per
+ * {@code outbox.poll-interval-ms}.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final String CLAIM =
+            "update outbox_events set locked_until = ?, attempts = attempts + 1 " +
+            "where id in (select id from outbox_events " +
+            "where processed_at is null and dead_at is null and available_at <= ? " +
+            "and (locked_until is null or locked_until < ?) " +
+            "order by id limit ? for update skip locked) " +
+            "returning id, handler, event_type, aggregate_id, payload, created_at, attempts, locked_until";
+    //every write of a delivery's outcome is conditional on the lease it claimed
+    private static final String MARK_DONE =
+            "update outbox_events set processed_at = ?, locked_until = null, last_error = null " +
+            "where id = ? and processed_at is null and locked_until = ?";
+    private static final String RETRY_LATER =
+            "update outbox_events set locked_until = null, available_at = ?, last_error = ? " +
+            "where id = ? and processed_at is null and locked_until = ?";
+    private static final String DEAD_LETTER =
+            "update outbox_events set locked_until = null, dead_at = ?, last_error = ? " +
+            "where id = ? and processed_at is null and locked_until = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    //handlers are resolved on first use, they may themselves depend on the outbox
+    private final ObjectProvider<OutboxHandler> handlerProvider;
+    private volatile Map<String, OutboxHandler> handlers;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long pollIntervalMs;
+    private final int batchSize;
+    private final long leaseSeconds;
+    private final long maxBackoffSeconds;
+    private final int maxAttempts;
+    private final long retentionHours;
+
+    private final Semaphore permits;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Object signal = new Object();
+    private boolean woken;
+    private volatile boolean running;
+    private Thread poller;
+
+    public OutboxDispatcher(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ObjectProvider<OutboxHandler> handlerProvider,
+                            @Value("${outbox.enabled:true}") boolean enabled,
+                            @Value("${outbox.poll-interval-ms:1000}") long pollIntervalMs,
+                            @Value("${outbox.batch-size:100}") int batchSize,
+                            @Value("${outbox.concurrency:16}") int concurrency,
+                            @Value("${outbox.lease-seconds:60}") long leaseSeconds,
+                            @Value("${outbox.max-backoff-seconds:300}") long maxBackoffSeconds,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.retention-hours:72}") long retentionHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.pollIntervalMs = pollIntervalMs;
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.maxBackoffSeconds = maxBackoffSeconds;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retentionHours = retentionHours;
+        this.permits = new Semaphore(concurrency);
+        this.handlerProvider = handlerProvider;
+    }
+
+    public List<OutboxHandler> handlersFor(String eventType) {
+        return handlers().values().stream()
+                .filter(handler -> handler.eventTypes().contains(eventType))
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || handlers().isEmpty()) {
+            log.info("Outbox dispatcher not started (enabled={}, handlers={})", enabled, handlers().keySet());
+            return;
+        }
+        running = true;
+        poller = Thread.ofPlatform().name("outbox-poller").daemon().start(this::pollLoop);
+        log.info("Outbox dispatcher started for handlers {}", handlers().keySet());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        wakeUp();
+        if (poller != null) {
+            poller.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Makes the poller look for work now instead of at its next interval.
+     */
+    public void wakeUp() {
+        synchronized (signal) {
+            woken = true;
+            signal.notifyAll();
+        }
+    }
+
+    public List<OutboxHandlerStats> stats() {
+        Map<String, Object[]> pending = new HashMap<>();
+        jdbcTemplate.query("select handler, count(*) filter (where dead_at is null), " +
+                        "min(created_at) filter (where dead_at is null), count(*) filter (where dead_at is not null) " +
+                        "from outbox_events where processed_at is null group by handler",
+                rs -> {
+                    pending.put(rs.getString(1), new Object[]{rs.getLong(2), rs.getTimestamp(3), rs.getLong(4)});
+                });
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxHandlerStats> result = new ArrayList<>();
+        for (String name : handlers().keySet()) {
+            Stats handlerStats = stats(name);
+            Object[] backlog = pending.get(name);
+            Timestamp oldest = backlog != null ? (Timestamp) backlog[1] : null;
+            long delivered = handlerStats.delivered.sum();
+            result.add(OutboxHandlerStats.builder()
+                    .handler(name)
+                    .delivered(delivered)
+                    .failures(handlerStats.failures.sum())
+                    .pending(backlog != null ? (Long) backlog[0] : 0L)
+                    .deadLettered(backlog != null ? (Long) backlog[2] : 0L)
+                    .oldestPendingAgeMs(oldest != null ? Duration.between(oldest.toLocalDateTime(), now).toMillis() : null)
+                    .lastLagMs(handlerStats.lastLagMs.get())
+                    .maxLagMs(handlerStats.maxLagMs.get())
+                    .averageLagMs(delivered == 0 ? 0.0 : (double) handlerStats.totalLagMs.sum() / delivered)
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Marks the pending deliveries of a handler as done without running it, for read models
+     * that were just rebuilt from the source tables.
+     */
+    public int skipPending(String handlerName) {
+        return jdbcTemplate.update("update outbox_events set processed_at = ?, locked_until = null " +
+                "where handler = ? and processed_at is null", LocalDateTime.now(), handlerName);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:3600000}")
+    public void purgeProcessed() {
+        int purged = jdbcTemplate.update("delete from outbox_events where processed_at < ?",
+                LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            log.info("Purged {} processed outbox events", purged);
+        }
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                int free = permits.availablePermits();
+                int requested = Math.min(free, batchSize);
+                List<OutboxMessage> claimed = requested > 0 ? claim(requested) : List.of();
+                for (OutboxMessage message : claimed) {
+                    permits.acquire();
+                    workers.execute(() -> {
+                        try {
+                            deliver(message);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+                //a full batch means there is probably more waiting
+                if (requested == 0 || claimed.size() < requested) {
+                    awaitWork(requested == 0 ? 50 : pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Outbox poll failed", e);
+                try {
+                    awaitWork(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<OutboxMessage> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        return transactionTemplate.execute(status -> jdbcTemplate.query(CLAIM,
+                (rs, rowNum) -> new OutboxMessage(
+                        rs.getLong("id"),
+                        rs.getString("handler"),
+                        rs.getString("event_type"),
+                        rs.getObject("aggregate_id", Long.class),
+                        rs.getString("payload"),
+                        rs.getTimestamp("created_at").toLocalDateTime(),
+                        rs.getInt("attempts"),
+                        rs.getTimestamp("locked_until").toLocalDateTime()),
+                now.plusSeconds(leaseSeconds), now, now, limit));
+    }
+
+    private void deliver(OutboxMessage message) {
+        OutboxHandler handler = handlers().get(message.handler());
+        Stats handlerStats = stats(message.handler());
+        if (handler == null) {
+            fail(message, "No outbox handler named " + message.handler());
+            return;
+        }
+        if (message.attempt() > maxAttempts) {
+            //earlier workers died holding it, do not hand it out again
+            fail(message, "Abandoned after " + (message.attempt() - 1) + " attempts");
+            return;
+        }
+        try {
+            Boolean done = transactionTemplate.execute(status -> {
+                handler.handle(message);
+                if (jdbcTemplate.update(MARK_DONE, LocalDateTime.now(), message.id(), message.lockedUntil()) == 0) {
+                    //the lease ran out and another worker took the event over, its delivery is the one that counts
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
+            if (Boolean.TRUE.equals(done)) {
+                handlerStats.delivered(Duration.between(message.createdAt(), LocalDateTime.now()).toMillis());
+            } else {
+                log.warn("Outbox handler {} outlived its lease on event {}, its delivery was rolled back",
+                        message.handler(), message.id());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox handler {} failed on event {} (attempt {})", message.handler(), message.id(), message.attempt(), e);
+            handlerStats.failures.increment();
+            fail(message, e.toString());
+        }
+    }
+
+    private void fail(OutboxMessage message, String error) {
+        if (message.attempt() >= maxAttempts) {
+            if (jdbcTemplate.update(DEAD_LETTER, LocalDateTime.now(), error, message.id(), message.lockedUntil()) > 0) {
+                log.error("Outbox event {} for handler {} dead-lettered after {} attempts: {}",
+                        message.id(), message.handler(), message.attempt(), error);
+            }
+            return;
+        }
+        long backoff = Math.min(maxBackoffSeconds, 1L << Math.min(message.attempt(), 20));
+        jdbcTemplate.update(RETRY_LATER, LocalDateTime.now().plusSeconds(backoff), error, message.id(), message.lockedUntil());
+    }
+
+    private Map<String, OutboxHandler> handlers() {
+        Map<String, OutboxHandler> registered = handlers;
+        if (registered == null) {
+            synchronized (this) {
+                if (handlers == null) {
+                    Map<String, OutboxHandler> byName = new LinkedHashMap<>();
+                    handlerProvider.orderedStream().forEach(handler -> {
+                        if (byName.put(handler.name(), handler) != null) {
+                            throw new IllegalStateException("Two outbox handlers are named " + handler.name());
+                        }
+                    });
+                    handlers = byName;
+                }
+                registered = handlers;
+            }
+        }
+        return registered;
+    }
+
+    private Stats stats(String handlerName) {
+        return stats.computeIfAbsent(handlerName, name -> new Stats());
+    }
+
+    private void awaitWork(long timeoutMs) throws InterruptedException {
+        synchronized (signal) {
+            if (!woken && running) {
+                signal.wait(timeoutMs);
+            }
+            woken = false;
+        }
+    }
+
+    private static final class Stats {
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalLagMs = new LongAdder();
+        private final AtomicLong lastLagMs = new AtomicLong();
+        private final AtomicLong maxLagMs = new AtomicLong();
+
+        void delivered(long lagMs) {
+            delivered.increment();
+            totalLagMs.add(lagMs);
+            lastLagMs.set(lagMs);
+            maxLagMs.accumulateAndGet(lagMs, Math::max);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.project.outbox;
+
+import java.util.Set;
+
+/**
+ * Consumer of outbox events. Delivery is at least once: {@link #handle} runs in a transaction
+ * that also marks the delivery done, so database work commits exactly once, but anything
+ * outside the database may see a retried event again.
+ */
+public interface OutboxHandler {
+
+    /**
+     * Stable name, stored on each delivery row of this handler.
+     */
+    String name();
+
+    Set<String> eventTypes();
+
+    void handle(OutboxMessage message);
+}
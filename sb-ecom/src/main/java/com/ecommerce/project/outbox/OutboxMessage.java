@@ -0,0 +1,13 @@
+package com.ecommerce.project.outbox;
+
+import java.time.LocalDateTime;
+
+public record OutboxMessage(Long id,
+                            String handler,
+                            String eventType,
+                            Long aggregateId,
+                            String payload, // JSON
+                            LocalDateTime createdAt,
+                            int attempt,
+                            LocalDateTime lockedUntil) { // the lease this delivery holds, it only counts while that lease is still on the row
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.project.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes an event into the outbox as part of the caller's transaction, one row per handler
+ * subscribed to its type, so the event exists exactly when the change that caused it commits.
+ */
+@Component
+public class OutboxPublisher {
+
+    private static final String INSERT =
+            "insert into outbox_events (handler, event_type, aggregate_id, payload, created_at, available_at, attempts) " +
+            "values (?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxDispatcher outboxDispatcher;
+
+    public OutboxPublisher(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, OutboxDispatcher outboxDispatcher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.outboxDispatcher = outboxDispatcher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, Long aggregateId, Object payload) {
+        publishAll(eventType, Map.of(aggregateId, payload));
+    }
+
+    /**
+     * Publishes one event per aggregate, all rows in one batch.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(String eventType, Map<Long, ?> payloads) {
+        List<OutboxHandler> subscribers = outboxDispatcher.handlersFor(eventType);
+        if (subscribers.isEmpty() || payloads.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(subscribers.size() * payloads.size());
+        payloads.forEach((aggregateId, payload) -> {
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(payload);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Outbox payload of " + eventType + " is not serializable", e);
+            }
+            subscribers.forEach(handler -> rows.add(new Object[]{handler.name(), eventType, aggregateId, json, now, now}));
+        });
+        jdbcTemplate.batchUpdate(INSERT, rows);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxDispatcher.wakeUp();
+            }
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.project.payload;
 
+import com.ecommerce.project.payload.cart.CartLineDTO;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,5 +14,5 @@ import java.util.List;
 public class CartDTO {
     private Long cartId;
     private Double totalPrice = 0.0;
-    private List<ProductDTO> products = new ArrayList<ProductDTO>();
+    private List<CartLineDTO> products = new ArrayList<>();
 }
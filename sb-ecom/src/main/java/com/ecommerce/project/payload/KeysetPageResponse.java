@@ -0,0 +1,15 @@
+package com.ecommerce.project.payload;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class KeysetPageResponse<T> {
+    List<T> content;
+    int pageSize;
+    boolean lastPage;
+    Long nextAfter; // pass back as "after" to fetch the next page, null on the last page
+}
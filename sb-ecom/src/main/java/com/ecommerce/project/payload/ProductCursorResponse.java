@@ -0,0 +1,12 @@
+package com.ecommerce.project.payload;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class ProductCursorResponse extends ProductResponse {
+    private String nextCursor; // pass back as "after" to fetch the next page, null on the last page
+}
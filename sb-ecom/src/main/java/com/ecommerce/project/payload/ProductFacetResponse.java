@@ -0,0 +1,13 @@
+package com.ecommerce.project.payload;
+
+import com.ecommerce.project.payload.catalog.CatalogFacets;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class ProductFacetResponse extends ProductResponse {
+    private CatalogFacets facets;
+}
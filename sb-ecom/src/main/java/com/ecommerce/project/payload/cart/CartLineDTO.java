@@ -0,0 +1,21 @@
+package com.ecommerce.project.payload.cart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a cart response. Field names follow ProductDTO, which the cart used to return.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLineDTO {
+    private Long productId;
+    private String productName;
+    private String image;
+    private Integer quantity; // units of the product in the cart
+    private Double price;
+    private Double discount;
+    private Double specialPrice; // unit price the cart charges
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.project.payload.cart;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+@Builder
+public class CartSweepStats {
+    long runs;
+    LocalDateTime lastRunAt; // null until the first pass
+    long lastDurationMs;
+    long lastScanned; // carts rows looked at by the last pass
+    long lastRemoved; // carts deleted by the last pass, with their items
+    long totalScanned;
+    long totalRemoved;
+    long idleDays;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.project.payload.cart;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CartSyncLine {
+
+    public enum Outcome {
+        ADDED,
+        UPDATED, // quantity or price differs from the line already in the cart
+        UNCHANGED,
+        REMOVED, // in the cart but not in the synced items
+        REJECTED // unknown product, invalid quantity or not enough stock; the cart keeps its own line
+    }
+
+    Long productId;
+    Integer quantity;
+    Outcome outcome;
+    String message;
+}
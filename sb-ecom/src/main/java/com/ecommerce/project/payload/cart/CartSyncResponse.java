@@ -0,0 +1,15 @@
+package com.ecommerce.project.payload.cart;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class CartSyncResponse {
+    Long cartId;
+    double totalPrice;
+    int changed; // lines added, updated or removed
+    List<CartSyncLine> lines;
+}
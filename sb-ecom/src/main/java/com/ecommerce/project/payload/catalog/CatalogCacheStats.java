@@ -0,0 +1,18 @@
+package com.ecommerce.project.payload.catalog;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CatalogCacheStats {
+    int size;
+    int maxSize;
+    long ttlSeconds;
+    long hits;
+    long misses;
+    double hitRatio;
+    long evictions; // dropped because the cache was full
+    long expirations; // dropped because the entry outlived the ttl
+    long invalidations; // dropped by a write to the product
+}
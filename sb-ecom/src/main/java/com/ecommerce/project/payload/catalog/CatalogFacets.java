@@ -0,0 +1,19 @@
+package com.ecommerce.project.payload.catalog;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Counts for each facet value. A facet's counts ignore that facet's own filter, so the
+ * storefront can show how many products picking another value would return.
+ */
+@Value
+@Builder
+public class CatalogFacets {
+    List<FacetCount> categories;
+    List<FacetCount> sellers;
+    List<FacetCount> priceRanges;
+    List<FacetCount> ratings; // "n stars and up"
+}
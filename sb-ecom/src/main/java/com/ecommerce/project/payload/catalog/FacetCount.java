@@ -0,0 +1,12 @@
+package com.ecommerce.project.payload.catalog;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class FacetCount {
+    long value; // category id, seller id, or bucket index for price and rating
+    String label;
+    int count;
+}
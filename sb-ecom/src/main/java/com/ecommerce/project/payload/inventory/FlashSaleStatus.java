@@ -0,0 +1,12 @@
+package com.ecommerce.project.payload.inventory;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class FlashSaleStatus {
+    Long productId;
+    int available; // units left on the in-memory counters
+    boolean closing; // stopped, waiting for its last reconciliation
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.project.payload.order;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkOrderStatusRequest {
+
+    @NotEmpty
+    @Valid
+    private List<Change> changes;
+
+    @Data
+    public static class Change {
+
+        @NotNull
+        private Long orderId;
+
+        @NotNull
+        private String status;
+    }
+}
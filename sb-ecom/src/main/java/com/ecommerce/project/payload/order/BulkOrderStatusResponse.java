@@ -0,0 +1,13 @@
+package com.ecommerce.project.payload.order;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class BulkOrderStatusResponse {
+    int updated;
+    List<OrderStatusResult> results; // one per requested order, in request order
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.project.payload.order;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class OrderStatusResult {
+
+    public enum Outcome {
+        UPDATED,
+        UNCHANGED, // already in the requested status
+        REJECTED, // not a valid status, or not reachable from the current one
+        NOT_FOUND,
+        CONFLICT // the order changed status while the request ran
+    }
+
+    Long orderId;
+    String previousStatus;
+    String status;
+    Outcome outcome;
+    String message;
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.project.payload.order;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Value
+@Builder
+public class StockReservationResponse {
+    Long reservationId;
+    String status;
+    LocalDateTime expiresAt;
+    Map<Long, Integer> quantities; // productId -> units held
+}
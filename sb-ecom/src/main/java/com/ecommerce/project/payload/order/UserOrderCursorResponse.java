@@ -0,0 +1,15 @@
+package com.ecommerce.project.payload.order;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class UserOrderCursorResponse {
+    List<UserOrderSummary> content;
+    int pageSize;
+    boolean lastPage;
+    String nextCursor; // pass back as "after" to fetch the next page, null on the last page
+}
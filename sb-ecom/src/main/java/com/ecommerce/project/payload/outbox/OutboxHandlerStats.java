@@ -0,0 +1,18 @@
+package com.ecommerce.project.payload.outbox;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class OutboxHandlerStats {
+    String handler;
+    long delivered;
+    long failures;
+    long pending;
+    long deadLettered; // gave up after outbox.max-attempts, not retried any more
+    Long oldestPendingAgeMs; // null when nothing is pending
+    long lastLagMs; // event written to handler done, for the last delivery
+    long maxLagMs;
+    double averageLagMs;
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.project.payload.seller;
+
+import lombok.Value;
+
+@Value
+public class ProductImportError {
+    long row; // data row number, the CSV header is not counted
+    String productName;
+    String message;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.project.payload.seller;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class ProductImportReport {
+    long totalRows;
+    long imported;
+    long failed;
+    List<ProductImportError> errors;
+    boolean errorsTruncated; // more rows failed than are listed in errors
+    long durationMs;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.project.payload.seller;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One product of a bulk import, as a CSV record (matched by header name) or an NDJSON line.
+ */
+@Data
+@NoArgsConstructor
+public class ProductImportRow {
+    private Long categoryId;
+    private String productName;
+    private String description;
+    private String detailDescription;
+    private Integer quantity;
+    private Double price;
+    private Double discount;
+}
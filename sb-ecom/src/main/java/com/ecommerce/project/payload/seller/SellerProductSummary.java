@@ -16,5 +16,6 @@ public class SellerProductSummary {
     Integer quantity;
     Double averageRating;
     Integer ratingCount;
+    long unitsSold;
 }
 
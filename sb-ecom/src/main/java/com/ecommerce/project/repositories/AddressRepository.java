@@ -1,8 +1,19 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Address;
+import com.ecommerce.project.payload.AddressDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 
 public interface AddressRepository extends JpaRepository<Address, Long> {
+
+    //keyset page in id order, the address columns only, no user loaded per row
+    @Query("select new com.ecommerce.project.payload.AddressDTO(a.addressId, a.street, a.buildingName, " +
+            "a.city, a.state, a.country, a.pincode) from Address a where a.addressId > :after order by a.addressId")
+    List<AddressDTO> findPageAfter(@Param("after") Long after, Pageable limit);
 }
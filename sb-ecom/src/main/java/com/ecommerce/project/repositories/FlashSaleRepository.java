@@ -0,0 +1,9 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.FlashSale;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FlashSaleRepository extends JpaRepository<FlashSale, Long> {
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+
+    /**
+     * Inserts the key, or takes over an expired row with it. Returns 0 when a live row exists;
+     * while another transaction holds the uncommitted insert of the same key this blocks until
+     * that transaction ends.
+     */
+    @Modifying
+    @Query(value = "insert into idempotency_keys (scope, idempotency_key, request_hash, created_at, expires_at) " +
+            "values (:scope, :key, :requestHash, :now, :expiresAt) " +
+            "on conflict (scope, idempotency_key) do update set request_hash = excluded.request_hash, " +
+            "response_body = null, created_at = excluded.created_at, expires_at = excluded.expires_at " +
+            "where idempotency_keys.expires_at < excluded.created_at",
+            nativeQuery = true)
+    int claim(@Param("scope") String scope,
+              @Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update IdempotencyRecord r set r.responseBody = :responseBody " +
+            "where r.scope = :scope and r.idempotencyKey = :key")
+    int complete(@Param("scope") String scope,
+                 @Param("key") String key,
+                 @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,88 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Payment;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checkout inserts over plain JDBC. The entities use IDENTITY keys, which stop Hibernate
+ * from batching, so the payment and order go in one statement and all items in one batch,
+ * whatever the size of the cart. The generated ids are set back on the passed objects.
+ */
+@Repository
+public class OrderBatchWriter {
+
+    private static final String INSERT_ORDER =
+            "with payment as (insert into payments (payment_method, pg_payment_id, pg_status, pg_response_message, pg_name) " +
+            "values (?, ?, ?, ?, ?) returning payment_id) " +
+            "insert into orders (email, user_id, order_date, placed_at, payment_id, total_amount, tax_amount, " +
+            "total_amount_after_tax, order_status, address_id) " +
+            "select ?, ?, ?, ?, payment.payment_id, ?, ?, ?, ?, ? from payment " +
+            "returning order_id, payment_id";
+
+    private static final String INSERT_ITEM =
+            "insert into order_items (order_id, product_id, quantity, discount, order_product_price, " +
+            "tax_amount, item_total_after_tax) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the order together with its payment.
+     */
+    public void insertOrder(Order order, Long userId) {
+        Payment payment = order.getPayment();
+        jdbcTemplate.query(INSERT_ORDER, rs -> {
+                    order.setOrderId(rs.getLong("order_id"));
+                    payment.setPaymentId(rs.getLong("payment_id"));
+                },
+                payment.getPaymentMethod(), payment.getPgPaymentId(), payment.getPgStatus(),
+                payment.getPgResponseMessage(), payment.getPgName(),
+                order.getEmail(), userId, order.getOrderDate(), order.getPlacedAt(),
+                order.getTotalAmount(), order.getTaxAmount(), order.getTotalAmountAfterTax(),
+                order.getOrderStatus(), order.getAddress() != null ? order.getAddress().getAddressId() : null);
+    }
+
+    public void insertItems(Long orderId, List<OrderItem> orderItems) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_ITEM, new String[]{"order_item_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        OrderItem item = orderItems.get(i);
+                        ps.setLong(1, orderId);
+                        ps.setLong(2, item.getProduct().getProductId());
+                        ps.setInt(3, item.getQuantity());
+                        ps.setDouble(4, item.getDiscount());
+                        ps.setDouble(5, item.getOrderProductPrice());
+                        ps.setObject(6, item.getTaxAmount());
+                        ps.setObject(7, item.getItemTotalAfterTax());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return orderItems.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < orderItems.size() && i < generated.size(); i++) {
+            orderItems.get(i).setOrderItemId(((Number) generated.get(i).get("order_item_id")).longValue());
+        }
+    }
+}
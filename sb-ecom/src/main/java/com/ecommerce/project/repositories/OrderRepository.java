@@ -1,18 +1,38 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Order;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderViewRepository {
     @Query("select COALESCE(sum(o.totalAmount), 0) from Order o")
     Double getTotalRevenue();
 
    Page<Order> findByUserUserId(Long userId, Pageable pageable);
 
     java.util.Optional<Order> findByOrderIdAndUserUserId(Long orderId, Long userId);
+
+    //single-order status changes hold the row, so a concurrent change (or bulk move) sees the status they wrote
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.orderId = :orderId")
+    Optional<Order> findByIdForUpdate(@Param("orderId") Long orderId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.orderId = :orderId and o.user.userId = :userId")
+    Optional<Order> findByOrderIdAndUserIdForUpdate(@Param("orderId") Long orderId, @Param("userId") Long userId);
+
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product", "payment", "address"})
+    List<Order> findWithItemsByOrderIdIn(Collection<Long> orderIds);
 }
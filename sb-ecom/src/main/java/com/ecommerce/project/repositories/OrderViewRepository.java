@@ -0,0 +1,25 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.repositories.projection.OrderDetailRow;
+import com.ecommerce.project.repositories.projection.OrderSummaryView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Projection queries for the user's order history. The history is served without loading
+ * order entities, so item counts and details never trigger lazy loads.
+ */
+public interface OrderViewRepository {
+
+    Page<OrderSummaryView> findSummaries(Long userId, Pageable pageable);
+
+    /**
+     * Keyset page in order id order, which is placement order. {@code afterOrderId} may be null
+     * for the first page.
+     */
+    List<OrderSummaryView> findSummariesAfter(Long userId, Long afterOrderId, boolean ascending, int limit);
+
+    List<OrderDetailRow> findDetailRows(Long orderId, Long userId);
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.repositories.projection.OrderDetailRow;
+import com.ecommerce.project.repositories.projection.OrderSummaryView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+class OrderViewRepositoryImpl implements OrderViewRepository {
+
+    private static final String SUMMARY_SELECT = """
+            select new com.ecommerce.project.repositories.projection.OrderSummaryView(
+                o.orderId, o.orderStatus, o.totalAmount, o.placedAt,
+                (select coalesce(sum(oi.quantity), 0) from OrderItem oi where oi.order = o))
+            from Order o
+            where o.user.userId = :userId
+            """;
+
+    private static final String DETAIL_QUERY = """
+            select new com.ecommerce.project.repositories.projection.OrderDetailRow(
+                o.orderId, o.orderStatus, o.totalAmount, o.placedAt,
+                a.addressId, a.street, a.buildingName, a.city, a.state, a.country, a.pincode,
+                oi.orderItemId, p.productId, p.productName, oi.quantity, oi.orderProductPrice, oi.discount)
+            from Order o
+            left join o.address a
+            left join o.orderItems oi
+            left join oi.product p
+            where o.orderId = :orderId and o.user.userId = :userId
+            order by oi.orderItemId
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<OrderSummaryView> findSummaries(Long userId, Pageable pageable) {
+        String jpql = pageable.getSort().isSorted()
+                ? QueryUtils.applySorting(SUMMARY_SELECT, pageable.getSort(), "o")
+                : SUMMARY_SELECT;
+        TypedQuery<OrderSummaryView> query = entityManager.createQuery(jpql, OrderSummaryView.class)
+                .setParameter("userId", userId);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> entityManager
+                .createQuery("select count(o) from Order o where o.user.userId = :userId", Long.class)
+                .setParameter("userId", userId)
+                .getSingleResult());
+    }
+
+    @Override
+    public List<OrderSummaryView> findSummariesAfter(Long userId, Long afterOrderId, boolean ascending, int limit) {
+        String jpql = SUMMARY_SELECT
+                + (afterOrderId == null ? "" : ascending ? " and o.orderId > :after" : " and o.orderId < :after")
+                + (ascending ? " order by o.orderId asc" : " order by o.orderId desc");
+        TypedQuery<OrderSummaryView> query = entityManager.createQuery(jpql, OrderSummaryView.class)
+                .setParameter("userId", userId)
+                .setMaxResults(limit);
+        if (afterOrderId != null) {
+            query.setParameter("after", afterOrderId);
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public List<OrderDetailRow> findDetailRows(Long orderId, Long userId) {
+        return entityManager.createQuery(DETAIL_QUERY, OrderDetailRow.class)
+                .setParameter("orderId", orderId)
+                .setParameter("userId", userId)
+                .getResultList();
+    }
+}
@@ -1,20 +1,24 @@
 package com.ecommerce.project.repositories;
 
+import com.ecommerce.project.catalog.ProductSearchDocument;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
 import com.ecommerce.project.model.User;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductViewRepository {
 
     Page<Product> findByCategoryOrderByPriceAsc(Category category, Pageable pageDetails);
 
@@ -28,4 +32,21 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
 
     @Query("select avg(p.price) from Product p where p.user = :user")
     Double findAveragePriceByUser(@Param("user") User user);
+
+    @Query("select new com.ecommerce.project.catalog.ProductSearchDocument(p.productId, p.productName, p.description, " +
+            "c.categoryId, c.categoryName, p.price, p.specialPrice, p.discount, p.quantity, p.averageRating, p.ratingCount, " +
+            "u.userId, u.userName) " +
+            "from Product p left join p.category c left join p.user u")
+    List<ProductSearchDocument> findAllSearchDocuments();
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Product p set p.priceVersion = p.priceVersion + 1 where p.productId = :productId")
+    int bumpPriceVersion(@Param("productId") Long productId);
+
+    boolean existsByCategoryAndProductName(Category category, String productName);
+
+    @Query("select p.category.categoryId, p.productName from Product p " +
+            "where p.category.categoryId in :categoryIds and p.productName in :names")
+    List<Object[]> findNamesInCategories(@Param("categoryIds") Collection<Long> categoryIds,
+                                         @Param("names") Collection<String> names);
 }
@@ -3,17 +3,27 @@ package com.ecommerce.project.repositories;
 import com.ecommerce.project.model.OrderItem;
 import com.ecommerce.project.model.ProductReview;
 import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.projection.OrderItemReviewView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductReviewRepository extends JpaRepository<ProductReview, Long> {
     Optional<ProductReview> findByOrderItem(OrderItem orderItem);
 
+    @Query("select new com.ecommerce.project.repositories.projection.OrderItemReviewView(" +
+            "r.orderItem.orderItemId, r.reviewId, r.rating, r.title, r.comment) " +
+            "from ProductReview r where r.orderItem.orderItemId in :orderItemIds")
+    List<OrderItemReviewView> findViewsByOrderItemIds(@Param("orderItemIds") Collection<Long> orderItemIds);
+
     Optional<ProductReview> findByUserAndProductProductId(User user, Long productId);
 
     Page<ProductReview> findByProductProductId(Long productId, Pageable pageable);
@@ -0,0 +1,24 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.ProductSalesCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProductSalesCounterRepository extends JpaRepository<ProductSalesCounter, Long> {
+
+    @Modifying
+    @Query("delete from ProductSalesCounter")
+    void deleteAllCounters();
+
+    @Modifying
+    @Query(value = "insert into product_sales_counters (product_id, units_sold) " +
+            "select oi.product_id, sum(oi.quantity) from order_items oi " +
+            "join orders o on o.order_id = oi.order_id " +
+            "where oi.product_id is not null and upper(coalesce(o.order_status, '')) <> 'CANCELLED' " +
+            "group by oi.product_id",
+            nativeQuery = true)
+    int insertFromOrderHistory();
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.projection.ProductDetailView;
+import com.ecommerce.project.repositories.projection.ProductListView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Projection queries for the product read endpoints. Each one selects only the columns
+ * the view renders, in a single statement (plus a count for paged results).
+ */
+public interface ProductViewRepository {
+
+    Page<ProductListView> findListViews(Specification<Product> spec, Pageable pageable);
+
+    List<ProductListView> findListViews(Specification<Product> spec, Sort sort, int limit);
+
+    List<ProductListView> findListViewsByIds(Collection<Long> productIds);
+
+    Optional<ProductDetailView> findDetailView(Long productId);
+}
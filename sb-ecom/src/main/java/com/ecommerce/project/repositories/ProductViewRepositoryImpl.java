@@ -0,0 +1,122 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.projection.ProductDetailView;
+import com.ecommerce.project.repositories.projection.ProductListView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+class ProductViewRepositoryImpl implements ProductViewRepository {
+
+    private static final String DETAIL_QUERY = """
+            select new com.ecommerce.project.repositories.projection.ProductDetailView(
+                p.productId, p.productName, p.image, p.description, p.detailDescription, p.quantity,
+                p.price, p.discount, p.specialPrice, p.averageRating, p.ratingCount,
+                c.categoryId, c.categoryName,
+                u.userId, u.userName, u.email, u.avatarUrl, u.sellerHeadline,
+                coalesce(s.unitsSold, 0))
+            from Product p
+            left join p.category c
+            left join p.user u
+            left join ProductSalesCounter s on s.productId = p.productId
+            where p.productId = :productId
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductListView> findListViews(Specification<Product> spec, Pageable pageable) {
+        TypedQuery<ProductListView> query = entityManager.createQuery(listQuery(spec, pageable.getSort()));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<ProductListView> findListViews(Specification<Product> spec, Sort sort, int limit) {
+        return entityManager.createQuery(listQuery(spec, sort))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<ProductListView> findListViewsByIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Specification<Product> byIds = (root, query, cb) -> root.get("productId").in(productIds);
+        return entityManager.createQuery(listQuery(byIds, Sort.unsorted())).getResultList();
+    }
+
+    @Override
+    public Optional<ProductDetailView> findDetailView(Long productId) {
+        return entityManager.createQuery(DETAIL_QUERY, ProductDetailView.class)
+                .setParameter("productId", productId)
+                .getResultStream()
+                .findFirst();
+    }
+
+    private CriteriaQuery<ProductListView> listQuery(Specification<Product> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductListView> query = cb.createQuery(ProductListView.class);
+        Root<Product> root = query.from(Product.class);
+        Join<Product, User> seller = root.join("user", JoinType.LEFT);
+
+        query.select(cb.construct(ProductListView.class,
+                root.get("productId"),
+                root.get("productName"),
+                root.get("image"),
+                root.get("description"),
+                root.get("detailDescription"),
+                root.get("quantity"),
+                root.get("price"),
+                root.get("discount"),
+                root.get("specialPrice"),
+                root.get("averageRating"),
+                root.get("ratingCount"),
+                seller.get("userName")));
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return query;
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(cb.count(root));
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
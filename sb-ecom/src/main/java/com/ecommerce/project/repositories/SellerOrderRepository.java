@@ -0,0 +1,25 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.SellerOrder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SellerOrderRepository extends JpaRepository<SellerOrder, SellerOrder.Key> {
+
+    Page<SellerOrder> findBySellerId(Long sellerId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "insert into seller_orders (seller_id, order_id, order_date, placed_at, total_amount) " +
+            "select distinct p.seller_id, o.order_id, o.order_date, o.placed_at, o.total_amount from orders o " +
+            "join order_items oi on oi.order_id = o.order_id " +
+            "join products p on p.product_id = oi.product_id " +
+            "where p.seller_id is not null " +
+            "on conflict (seller_id, order_id) do nothing",
+            nativeQuery = true)
+    int insertFromOrderHistory();
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from StockReservation r where r.userId = :userId and r.status = 'HELD'")
+    List<StockReservation> findHeldByUserIdForUpdate(@Param("userId") Long userId);
+
+    Optional<StockReservation> findFirstByOrderIdAndStatus(Long orderId, String status);
+
+    @Modifying
+    @Query("update StockReservation r set r.status = 'RELEASED' where r.orderId in :orderIds and r.status = 'CONFIRMED'")
+    int releaseConfirmedForOrders(@Param("orderIds") Collection<Long> orderIds);
+
+    //rows another worker is already releasing are skipped rather than waited for
+    @Query(value = "select reservation_id from stock_reservations " +
+            "where status = 'HELD' and expires_at < :now order by reservation_id limit :limit " +
+            "for update skip locked",
+            nativeQuery = true)
+    List<Long> lockExpiredIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.project.repositories.projection;
+
+/**
+ * Product columns a cart line renders, plus the price version its line is checked against.
+ */
+public record CartProductView(
+        Long productId,
+        String productName,
+        String image,
+        double price,
+        double discount,
+        double specialPrice,
+        long priceVersion) {
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.project.repositories.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * One item of an order joined with the order and its shipping address. The order and address
+ * columns repeat on every row; an order without items yields one row with null item columns.
+ */
+public record OrderDetailRow(
+        Long orderId,
+        String orderStatus,
+        Double totalAmount,
+        LocalDateTime placedAt,
+        Long addressId,
+        String street,
+        String buildingName,
+        String city,
+        String state,
+        String country,
+        String pincode,
+        Long orderItemId,
+        Long productId,
+        String productName,
+        Integer quantity,
+        Double unitPrice,
+        Double discount) {
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.project.repositories.projection;
+
+/**
+ * The review left on an order item, as shown next to the item on the order detail.
+ */
+public record OrderItemReviewView(
+        Long orderItemId,
+        Long reviewId,
+        Integer rating,
+        String title,
+        String comment) {
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.project.repositories.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of the user's order history, with the units on the order summed in the same query.
+ */
+public record OrderSummaryView(
+        Long orderId,
+        String orderStatus,
+        Double totalAmount,
+        LocalDateTime placedAt,
+        Long totalItems) {
+}
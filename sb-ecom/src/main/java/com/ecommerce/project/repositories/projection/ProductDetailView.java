@@ -0,0 +1,26 @@
+package com.ecommerce.project.repositories.projection;
+
+/**
+ * Product row joined with its category and seller, plus units sold, for the detail page.
+ */
+public record ProductDetailView(
+        Long productId,
+        String productName,
+        String image,
+        String description,
+        String detailDescription,
+        Integer quantity,
+        double price,
+        double discount,
+        double specialPrice,
+        Double averageRating,
+        Integer ratingCount,
+        Long categoryId,
+        String categoryName,
+        Long sellerId,
+        String sellerName,
+        String sellerEmail,
+        String sellerAvatarUrl,
+        String sellerHeadline,
+        Long unitsSold) {
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.project.repositories.projection;
+
+/**
+ * Columns a product card renders in the list, admin and seller views.
+ */
+public record ProductListView(
+        Long productId,
+        String productName,
+        String image,
+        String description,
+        String detailDescription,
+        Integer quantity,
+        double price,
+        double discount,
+        double specialPrice,
+        Double averageRating,
+        Integer ratingCount,
+        String sellerName) {
+}
@@ -2,13 +2,18 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.payload.AddressDTO;
+import com.ecommerce.project.payload.KeysetPageResponse;
+import com.ecommerce.project.util.ExportFormat;
 
+import java.io.OutputStream;
 import java.util.List;
 
 public interface AddressService {
     AddressDTO createAddress(AddressDTO addressDTO, User user);
 
-    List<AddressDTO> getAddress();
+    KeysetPageResponse<AddressDTO> getAddresses(Long after, Integer pageSize);
+
+    void exportAddresses(ExportFormat format, OutputStream out);
 
     AddressDTO getAddressById(Long addressId);
 
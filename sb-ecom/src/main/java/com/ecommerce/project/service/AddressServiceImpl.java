@@ -1,29 +1,49 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.DtoMapper;
 import com.ecommerce.project.model.Address;
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.payload.AddressDTO;
+import com.ecommerce.project.payload.KeysetPageResponse;
 import com.ecommerce.project.repositories.AddressRepository;
 import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.util.ExportFormat;
+import com.ecommerce.project.util.QueryExporter;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
 import java.util.List;
 
 @Service
 public class AddressServiceImpl implements  AddressService{
 
+    private static final String EXPORT =
+            "select address_id, user_id, street, building_name, city, state, country, pincode " +
+            "from addresses order by address_id";
+    private static final List<String> EXPORT_COLUMNS = List.of(
+            "address_id", "user_id", "street", "building_name", "city", "state", "country", "pincode");
+
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private DtoMapper dtoMapper;
+
     @Autowired
     private AddressRepository addressRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private QueryExporter queryExporter;
+
     @Override
     public AddressDTO createAddress(AddressDTO addressDTO, User user) {
         Address address = modelMapper.map(addressDTO, Address.class);
@@ -35,30 +55,43 @@ public class AddressServiceImpl implements  AddressService{
         address.setUser(user);
         Address savedAddress = addressRepository.save(address);
 
-        return modelMapper.map(savedAddress, AddressDTO.class);
+        return dtoMapper.toAddressDto(savedAddress);
     }
 
     @Override
-    public List<AddressDTO> getAddress() {
-        List<Address> addresses = addressRepository.findAll();
-        List<AddressDTO> addressDTOS = addresses.stream()
-                .map(address -> modelMapper.map(address,AddressDTO.class))
-                .toList();
-        return addressDTOS;
+    public KeysetPageResponse<AddressDTO> getAddresses(Long after, Integer pageSize) {
+        if (pageSize < 1 || pageSize > AppConstants.MAX_KEYSET_PAGE_SIZE) {
+            throw new APIException("Page size must be between 1 and " + AppConstants.MAX_KEYSET_PAGE_SIZE);
+        }
+        //one address past the page tells whether there is a next one
+        List<AddressDTO> addresses = addressRepository.findPageAfter(after, PageRequest.ofSize(pageSize + 1));
+        boolean lastPage = addresses.size() <= pageSize;
+        List<AddressDTO> page = lastPage ? addresses : addresses.subList(0, pageSize);
+        return KeysetPageResponse.<AddressDTO>builder()
+                .content(page)
+                .pageSize(pageSize)
+                .lastPage(lastPage)
+                .nextAfter(lastPage ? null : page.get(page.size() - 1).getAddressId())
+                .build();
+    }
+
+    @Override
+    public void exportAddresses(ExportFormat format, OutputStream out) {
+        queryExporter.export(EXPORT, new Object[0], format, out, EXPORT_COLUMNS);
     }
 
     @Override
     public AddressDTO getAddressById(Long addressId) {
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "AddressId", addressId));
-        return modelMapper.map(address,AddressDTO.class);
+        return dtoMapper.toAddressDto(address);
     }
 
     @Override
     public List<AddressDTO> getUserAddress(User user) {
         List<Address> addresses = user.getAddresses();
         List<AddressDTO> addressDTOS = addresses.stream()
-                .map(address -> modelMapper.map(address,AddressDTO.class))
+                .map(address -> dtoMapper.toAddressDto(address))
                 .toList();
         return addressDTOS;
     }
@@ -82,7 +115,7 @@ public class AddressServiceImpl implements  AddressService{
         user.getAddresses().add(updatedAddress);
         userRepository.save(user);
 
-        return modelMapper.map(updatedAddress,AddressDTO.class);
+        return dtoMapper.toAddressDto(updatedAddress);
     }
 
     @Override
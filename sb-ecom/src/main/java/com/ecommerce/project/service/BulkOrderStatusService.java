@@ -0,0 +1,187 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.order.OrderStatus;
+import com.ecommerce.project.outbox.OrderEvents;
+import com.ecommerce.project.outbox.OutboxPublisher;
+import com.ecommerce.project.payload.order.BulkOrderStatusRequest;
+import com.ecommerce.project.payload.order.BulkOrderStatusResponse;
+import com.ecommerce.project.payload.order.OrderStatusResult;
+import com.ecommerce.project.payload.order.OrderStatusResult.Outcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Moves many orders to new statuses at once. Every change is checked against {@link OrderStatus},
+ * then the accepted ones are written with one conditional update per target status, so an order
+ * whose status moved while the request ran is reported as a conflict instead of being overwritten.
+ * Cancelled orders give their stock back and publish their cancellation, in bulk as well.
+ */
+@Service
+public class BulkOrderStatusService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkOrderStatusService.class);
+
+    private static final String CURRENT_STATUS =
+            "select order_id, order_status from orders where order_id in (:ids)";
+    private static final String SELLER_ORDERS =
+            "select order_id from seller_orders where seller_id = :sellerId and order_id in (:ids)";
+    private static final String MOVE =
+            "update orders set order_status = :status " +
+            "where order_id in (:ids) and upper(order_status) in (:from) returning order_id";
+    private static final String ORDER_LINES =
+            "select order_id, product_id, sum(quantity) from order_items " +
+            "where order_id in (:ids) and product_id is not null group by order_id, product_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final InventoryService inventoryService;
+    private final OutboxPublisher outboxPublisher;
+    private final int maxChanges;
+
+    public BulkOrderStatusService(NamedParameterJdbcTemplate jdbcTemplate,
+                                  InventoryService inventoryService,
+                                  OutboxPublisher outboxPublisher,
+                                  @Value("${orders.bulk-status.max-changes:500}") int maxChanges) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryService = inventoryService;
+        this.outboxPublisher = outboxPublisher;
+        this.maxChanges = maxChanges;
+    }
+
+    /**
+     * @param sellerId when set, only orders with a product of this seller can be changed, the
+     *                 others are reported as not found
+     * @return one result per change, in request order
+     */
+    @Transactional
+    public BulkOrderStatusResponse apply(List<BulkOrderStatusRequest.Change> changes, Long sellerId) {
+        if (changes.size() > maxChanges) {
+            throw new APIException("At most " + maxChanges + " status changes can be sent at once");
+        }
+        Set<Long> ids = changes.stream().map(BulkOrderStatusRequest.Change::getOrderId).collect(Collectors.toSet());
+        Map<Long, String> current = currentStatuses(ids, sellerId);
+
+        //validate everything first, then group what is left by target status
+        OrderStatusResult[] results = new OrderStatusResult[changes.size()];
+        Map<OrderStatus, Map<Long, Integer>> moves = new EnumMap<>(OrderStatus.class);
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < changes.size(); i++) {
+            BulkOrderStatusRequest.Change change = changes.get(i);
+            Long orderId = change.getOrderId();
+            String previous = current.get(orderId);
+            OrderStatus from = OrderStatus.parse(previous);
+            OrderStatus to = OrderStatus.parse(change.getStatus());
+            if (!seen.add(orderId)) {
+                results[i] = result(orderId, previous, Outcome.REJECTED, "Order appears more than once in the request");
+            } else if (previous == null) {
+                results[i] = result(orderId, null, Outcome.NOT_FOUND, "Order not found");
+            } else if (to == null) {
+                results[i] = result(orderId, previous, Outcome.REJECTED, "Unknown status " + change.getStatus());
+            } else if (to == from) {
+                results[i] = result(orderId, previous, Outcome.UNCHANGED, null);
+            } else if (from == null || !from.canMoveTo(to)) {
+                results[i] = result(orderId, previous, Outcome.REJECTED,
+                        "Order cannot move from " + previous + " to " + to);
+            } else {
+                moves.computeIfAbsent(to, status -> new LinkedHashMap<>()).put(orderId, i);
+            }
+        }
+
+        int updated = 0;
+        for (Map.Entry<OrderStatus, Map<Long, Integer>> move : moves.entrySet()) {
+            OrderStatus to = move.getKey();
+            Map<Long, Integer> pending = move.getValue();
+            Set<Long> moved = new HashSet<>(jdbcTemplate.queryForList(MOVE, new MapSqlParameterSource()
+                    .addValue("status", to.name())
+                    .addValue("ids", pending.keySet())
+                    .addValue("from", sourcesOf(to)), Long.class));
+            pending.forEach((orderId, index) -> results[index] = moved.contains(orderId)
+                    ? OrderStatusResult.builder()
+                            .orderId(orderId)
+                            .previousStatus(current.get(orderId))
+                            .status(to.name())
+                            .outcome(Outcome.UPDATED)
+                            .build()
+                    : result(orderId, current.get(orderId), Outcome.CONFLICT, "Order status changed while the request ran"));
+            if (to == OrderStatus.CANCELLED && !moved.isEmpty()) {
+                cancelled(moved);
+            }
+            updated += moved.size();
+        }
+        log.info("Bulk status change: {} of {} orders updated", updated, changes.size());
+
+        return BulkOrderStatusResponse.builder()
+                .updated(updated)
+                .results(List.of(results))
+                .build();
+    }
+
+    private Map<Long, String> currentStatuses(Set<Long> ids, Long sellerId) {
+        Map<Long, String> statuses = new HashMap<>();
+        jdbcTemplate.query(CURRENT_STATUS, Map.of("ids", ids),
+                rs -> {
+                    statuses.put(rs.getLong(1), rs.getString(2));
+                });
+        if (sellerId != null && !statuses.isEmpty()) {
+            //a seller only sees orders that carry one of their products
+            Set<Long> own = new HashSet<>(jdbcTemplate.queryForList(SELLER_ORDERS,
+                    Map.of("sellerId", sellerId, "ids", statuses.keySet()), Long.class));
+            statuses.keySet().retainAll(own);
+        }
+        return statuses;
+    }
+
+    /**
+     * Releases the stock of the cancelled orders and publishes their cancellations, one query
+     * and one batch each.
+     */
+    private void cancelled(Set<Long> orderIds) {
+        Map<Long, Map<Long, Integer>> quantitiesByOrder = new HashMap<>();
+        jdbcTemplate.query(ORDER_LINES, Map.of("ids", orderIds),
+                rs -> {
+                    quantitiesByOrder.computeIfAbsent(rs.getLong(1), id -> new HashMap<>())
+                            .put(rs.getLong(2), rs.getInt(3));
+                });
+        inventoryService.releaseForOrders(quantitiesByOrder);
+
+        Map<Long, OrderEvents.OrderLines> events = new HashMap<>();
+        quantitiesByOrder.forEach((orderId, quantities) ->
+                events.put(orderId, new OrderEvents.OrderLines(orderId, quantities)));
+        outboxPublisher.publishAll(OrderEvents.ORDER_CANCELLED, events);
+    }
+
+    private static List<String> sourcesOf(OrderStatus target) {
+        List<String> sources = new ArrayList<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            if (status.canMoveTo(target)) {
+                sources.add(status.name());
+            }
+        }
+        return sources;
+    }
+
+    private static OrderStatusResult result(Long orderId, String previous, Outcome outcome, String message) {
+        return OrderStatusResult.builder()
+                .orderId(orderId)
+                .previousStatus(previous)
+                .status(previous)
+                .outcome(outcome)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.cart.CartLine;
+import com.ecommerce.project.cart.CartState;
+import com.ecommerce.project.cart.CartStore;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.projection.CartProductView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Reprices cart lines when the cart is read instead of when the product changes. A product
+ * update only bumps products.price_version; every cart line keeps the version it was priced at,
+ * so a stale line is found by comparing the two against products the reader loads anyway.
+ */
+@Service
+@RequiredArgsConstructor
+public class CartPricingService {
+
+    private final CartStore cartStore;
+
+    /**
+     * Moves the stale lines of the cart to their products' current price and writes the cart.
+     *
+     * @param products the cart's products by id, as read by the cart view
+     * @param reload   reads the cart again when the write finds it changed elsewhere
+     * @return the repriced cart, or the cart itself when none of its lines were stale
+     */
+    public CartState refresh(CartState cart, Map<Long, CartProductView> products, Supplier<CartState> reload) {
+        if (cart.lines().stream().noneMatch(line -> isStale(line, products.get(line.productId())))) {
+            return cart;
+        }
+        AtomicBoolean first = new AtomicBoolean(true);
+        return cartStore.update(() -> first.getAndSet(false) ? cart : reload.get(), current -> {
+            for (CartLine line : current.lines()) {
+                CartProductView product = products.get(line.productId());
+                if (isStale(line, product)) {
+                    current.reprice(line.productId(), product.discount(), product.specialPrice(), product.priceVersion());
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the line at the product's current price, for readers that do not keep the cart
+     */
+    public static CartLine current(CartLine line, Product product) {
+        return line.priceVersion() < product.getPriceVersion()
+                ? line.repriced(product.getDiscount(), product.getSpecialPrice(), product.getPriceVersion())
+                : line;
+    }
+
+    private static boolean isStale(CartLine line, CartProductView product) {
+        return product != null && line.priceVersion() < product.priceVersion();
+    }
+}
@@ -2,24 +2,30 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.CartDTO;
 import com.ecommerce.project.payload.CartItemsDTO;
+import com.ecommerce.project.payload.KeysetPageResponse;
+import com.ecommerce.project.payload.cart.CartSyncResponse;
+import com.ecommerce.project.util.ExportFormat;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
 import java.util.List;
 
 public interface CartService {
     CartDTO addProductToCart(Long productId, Integer quantity);
 
-    List<CartDTO> getAllCarts();
+    KeysetPageResponse<CartDTO> getCarts(Long after, Integer pageSize);
+
+    void exportCarts(ExportFormat format, OutputStream out);
 
     CartDTO getCart(String emailId, Long cartId);
 
+    CartDTO getCart(String emailId);
+
     @Transactional
     CartDTO updateProductQuantityInCart(Long productId, Integer quantity);
 
     String deleteProductFromCart(Long cartId, Long productId);
 
-    void updateProductInCarts(Long cartId, Long productId);
-
-    String createOrUpdateCartWithItems(List<CartItemsDTO> cartItems);
+    CartSyncResponse createOrUpdateCartWithItems(List<CartItemsDTO> cartItems);
 }
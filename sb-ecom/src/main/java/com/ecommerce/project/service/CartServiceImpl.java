@@ -1,31 +1,39 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.cart.CartLine;
+import com.ecommerce.project.cart.CartListingReader;
+import com.ecommerce.project.cart.CartProductReader;
+import com.ecommerce.project.cart.CartState;
+import com.ecommerce.project.cart.CartStore;
+import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
-import com.ecommerce.project.model.Cart;
-import com.ecommerce.project.model.CartItem;
 import com.ecommerce.project.model.Product;
 import com.ecommerce.project.payload.CartDTO;
 import com.ecommerce.project.payload.CartItemsDTO;
-import com.ecommerce.project.payload.ProductDTO;
-import com.ecommerce.project.repositories.CartItemRepository;
-import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.payload.KeysetPageResponse;
+import com.ecommerce.project.payload.cart.CartLineDTO;
+import com.ecommerce.project.payload.cart.CartSyncLine;
+import com.ecommerce.project.payload.cart.CartSyncResponse;
 import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.projection.CartProductView;
 import com.ecommerce.project.util.AuthUtil;
+import com.ecommerce.project.util.ExportFormat;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 public class CartServiceImpl implements CartService {
-    @Autowired
-    CartRepository cartRepository;
-
     @Autowired
     private AuthUtil authUtil;
 
@@ -33,105 +41,97 @@ public class CartServiceImpl implements CartService {
     ProductRepository productRepository;
 
     @Autowired
-    CartItemRepository cartItemRepository;
+    CartStore cartStore;
+
+    @Autowired
+    InventoryService inventoryService;
 
     @Autowired
-    ModelMapper modelMapper;
+    CartPricingService cartPricingService;
+
+    @Autowired
+    CartProductReader cartProductReader;
+
+    @Autowired
+    CartListingReader cartListingReader;
 
 
 
     @Override
     public CartDTO addProductToCart(Long productId, Integer quantity) {
-        //tim hoac tao moi cart
-        Cart cart = createCart();
-
         //lay product detail
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product","productId",productId));
 
-        //validation
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(
-                cart.getCartId(),
-                productId
-        );
-        if(cartItem != null) {
-            throw new APIException("Product " + product.getProductName() + " already exists in the cart");
-        }
-        if(product.getQuantity() == 0) {
-            throw new APIException("Product " + product.getProductName() + " is not available");
-        }
-
-        if(product.getQuantity() < quantity) {
-            throw new APIException("Please, make an order of the " + product.getProductName()
-                    + " less than or equal to the quantity " + product.getQuantity() + ".");
-        }
-
-        //tao cartiem
-        CartItem newCartItem = new CartItem();
-        newCartItem.setProduct(product);
-        newCartItem.setCart(cart);
-        newCartItem.setQuantity(quantity);
-        newCartItem.setDiscount(product.getDiscount());
-        newCartItem.setProductPrice(product.getSpecialPrice());
+        //flash-sale products answer from their in-memory stock, a sold-out one is rejected here
+        int available = inventoryService.available(product);
 
-        //luu
-        cartItemRepository.save(newCartItem);
-
-        // product.setQuantity(product.getQuantity() - quantity); //giam luong hang sau khi them vao gio
-        cart.setTotalPrice(cart.getTotalPrice() + (product.getSpecialPrice() * quantity));
-        cartRepository.save(cart);
+        //tim hoac tao moi cart, read again and redone if another request changed it meanwhile
+        String emailId = authUtil.loggedInEmail();
+        CartState cart = cartStore.update(() -> cartStore.getOrCreate(emailId, authUtil::loggedInUserId), current -> {
+            //validation
+            if(current.line(productId) != null) {
+                throw new APIException("Product " + product.getProductName() + " already exists in the cart");
+            }
+            if(available == 0) {
+                throw new APIException("Product " + product.getProductName() + " is not available");
+            }
+
+            if(available < quantity) {
+                throw new APIException("Please, make an order of the " + product.getProductName()
+                        + " less than or equal to the quantity " + available + ".");
+            }
+
+            // product.setQuantity(product.getQuantity() - quantity); //giam luong hang sau khi them vao gio
+            current.putLine(new CartLine(productId, quantity, product.getDiscount(), product.getSpecialPrice(),
+                    product.getPriceVersion()));
+        });
 
         //return updated cart
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-
-        List<CartItem> cartItems = cart.getCartItems();
-
-        Stream<ProductDTO> productDTOStream = cartItems.stream().map(item -> {
-                    ProductDTO map = modelMapper.map(item.getProduct(),ProductDTO.class);
-                    map.setQuantity(item.getQuantity());//sluong duoc them vao gio hang
-                    return map;
-        });
-        cartDTO.setProducts(productDTOStream.toList());
-        return cartDTO;
+        return toCartDto(cart);
     }
 
     @Override
-    public List<CartDTO> getAllCarts() {
-        List<Cart> carts = cartRepository.findAll();
-        if(carts.isEmpty()) {
-            throw new APIException("No cart exist");
+    public KeysetPageResponse<CartDTO> getCarts(Long after, Integer pageSize) {
+        if(pageSize < 1 || pageSize > AppConstants.MAX_KEYSET_PAGE_SIZE) {
+            throw new APIException("Page size must be between 1 and " + AppConstants.MAX_KEYSET_PAGE_SIZE);
         }
+        //the listing reads carts from the database, write pending cart changes first
+        cartStore.flushAll();
+        //one cart past the page tells whether there is a next one
+        List<CartDTO> carts = cartListingReader.page(after, pageSize + 1);
+        boolean lastPage = carts.size() <= pageSize;
+        List<CartDTO> page = lastPage ? carts : carts.subList(0, pageSize);
+        return KeysetPageResponse.<CartDTO>builder()
+                .content(page)
+                .pageSize(pageSize)
+                .lastPage(lastPage)
+                .nextAfter(lastPage ? null : page.get(page.size() - 1).getCartId())
+                .build();
+    }
 
-        List<CartDTO> cartDTOS = carts.stream()
-                .map(cart -> {
-                    CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-
-                    List<ProductDTO> products = cart.getCartItems().stream().map(cartItem -> {
-                                ProductDTO productDTO = modelMapper.map(cartItem.getProduct(), ProductDTO.class);
-                                productDTO.setQuantity(cartItem.getQuantity());
-                                return productDTO;
-                    }).collect(Collectors.toList());
-
-                    cartDTO.setProducts(products);
-                    return cartDTO;
-                }).collect(Collectors.toList());
-        return cartDTOS;
+    @Override
+    public void exportCarts(ExportFormat format, OutputStream out) {
+        cartStore.flushAll();
+        cartListingReader.export(format, out);
     }
 
     @Override
     public CartDTO getCart(String emailId, Long cartId) {
-        Cart cart = cartRepository.findCartByEmailAndCartId(emailId,cartId);
-        if(cart == null) {
+        CartState cart = cartStore.find(emailId);
+        if(cart == null || !cart.getCartId().equals(cartId)) {
             throw new ResourceNotFoundException("Cart","cartId",cartId);
         }
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-        cart.getCartItems().forEach(c->
-                c.getProduct().setQuantity(c.getQuantity()));
-        List<ProductDTO> products = cart.getCartItems().stream()
-                .map(p -> modelMapper.map(p.getProduct(), ProductDTO.class))
-                .toList();
-        cartDTO.setProducts(products);
-        return cartDTO;
+        return toRepricedCartDto(cart, emailId);
+    }
+
+    @Override
+    public CartDTO getCart(String emailId) {
+        CartState cart = cartStore.find(emailId);
+        if(cart == null) {
+            throw new ResourceNotFoundException("Cart","email",emailId);
+        }
+        return toRepricedCartDto(cart, emailId);
     }
 
     @Transactional
@@ -139,169 +139,216 @@ public class CartServiceImpl implements CartService {
     public CartDTO updateProductQuantityInCart(Long productId, Integer quantity) {
 
         String emailId = authUtil.loggedInEmail();
-        Cart userCart = cartRepository.findCartByEmail(emailId);
-        Long cartId = userCart.getCartId();
-
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart","cartId",cartId));
 
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product","productId",productId));
 
-        if(product.getQuantity() == 0) {
+        //flash-sale products answer from their in-memory stock
+        int available = inventoryService.available(product);
+        if(available == 0) {
             throw new APIException("Product " + product.getProductName() + " is not available");
         }
 
-        if(product.getQuantity() < quantity) {
+        if(available < quantity) {
             throw new APIException("Please, make an order of the " + product.getProductName()
-                    + " less than or equal to the quantity " + product.getQuantity() + ".");
-        }
-
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId,productId);
-        if(cartItem == null) {
-            throw new APIException("Product " + product.getProductName() + " not available in the cart");
-        }
-
-        // tinh slg moi
-        int newQuantity = cartItem.getQuantity() + quantity;
-
-        //valid slg am
-        if(newQuantity < 0) {
-            throw new APIException("The resulting quantity is cannot be negative");
-        }
-
-        if(newQuantity == 0) {
-            deleteProductFromCart(cartId,productId);
-        }else{
-            cartItem.setProductPrice(product.getSpecialPrice());
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-            cartItem.setDiscount(product.getDiscount());
-            cart.setTotalPrice(cart.getTotalPrice() + (cartItem.getProductPrice()*quantity));
-            cartRepository.save(cart);
-
-        }
-        CartItem updatedItem = cartItemRepository.save(cartItem);
-        if(updatedItem.getQuantity() == 0) {
-            cartRepository.deleteById(updatedItem.getCartItemId());
+                    + " less than or equal to the quantity " + available + ".");
         }
 
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-        List<CartItem> cartItems = cart.getCartItems();
-
-        Stream<ProductDTO> productStream = cartItems.stream().map(item -> {
-            ProductDTO prd = modelMapper.map(item.getProduct(), ProductDTO.class);
-            prd.setQuantity((item.getQuantity()));
-            return prd;
+        CartState cart = cartStore.update(() -> {
+            CartState current = cartStore.find(emailId);
+            if(current == null) {
+                throw new ResourceNotFoundException("Cart","email",emailId);
+            }
+            return current;
+        }, current -> {
+            CartLine cartItem = current.line(productId);
+            if(cartItem == null) {
+                throw new APIException("Product " + product.getProductName() + " not available in the cart");
+            }
+
+            // tinh slg moi
+            int newQuantity = cartItem.quantity() + quantity;
+
+            //valid slg am
+            if(newQuantity < 0) {
+                throw new APIException("The resulting quantity is cannot be negative");
+            }
+
+            if(newQuantity == 0) {
+                current.removeLine(productId);
+            }else{
+                current.putLine(new CartLine(productId, newQuantity, product.getDiscount(), product.getSpecialPrice(),
+                        product.getPriceVersion()));
+            }
         });
-        cartDTO.setProducts(productStream.toList());
-        return cartDTO;
+
+        return toCartDto(cart);
     }
 
     @Transactional
     @Override
     public String deleteProductFromCart(Long cartId, Long productId) {
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart","cartId",cartId));
-
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId,productId);
-
-        if(cartItem == null) {
-            throw new ResourceNotFoundException("Product","productId",productId);
-        }
-
-        cart.setTotalPrice(cart.getTotalPrice() -
-                (cartItem.getProductPrice() * cartItem.getQuantity()));
-        cartItemRepository.deleteCartItemByProductIdAndCartId(cartId,productId);
+        cartStore.update(() -> {
+            CartState current = cartStore.findById(cartId);
+            if(current == null) {
+                throw new ResourceNotFoundException("Cart","cartId",cartId);
+            }
+            return current;
+        }, current -> {
+            if(current.removeLine(productId) == null) {
+                throw new ResourceNotFoundException("Product","productId",productId);
+            }
+        });
 
-        return "Product " + cartItem.getProduct().getProductName() + " has been deleted";
+        String productName = productRepository.findById(productId)
+                .map(Product::getProductName)
+                .orElse(String.valueOf(productId));
+        return "Product " + productName + " has been deleted";
     }
 
+    @Transactional
     @Override
-    public void updateProductInCarts(Long cartId, Long productId) {
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart","cartId",cartId));
-
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product","productId",productId));
+    public CartSyncResponse createOrUpdateCartWithItems(List<CartItemsDTO> cartItems) {
+        //get user eamil
+        String emailId = authUtil.loggedInEmail();
 
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId,productId);
+        //find all products in one query
+        Map<Long, Product> products = productRepository.findAllById(
+                        cartItems.stream().map(CartItemsDTO::getProductId).filter(Objects::nonNull).distinct().toList()).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
 
-        if(cartItem == null) {
-            throw new APIException("Product " + product.getProductName() + " not available in the cart");
+        //repeated products add up, lines that cannot go into the cart are reported instead of failing the sync
+        List<CartSyncLine> rejected = new ArrayList<>();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for(CartItemsDTO cartItemDTO : cartItems) {
+            Long productId = cartItemDTO.getProductId();
+            Integer quantity = cartItemDTO.getQuantity();
+            if(productId == null || quantity == null || quantity <= 0) {
+                rejected.add(syncLine(productId, quantity, CartSyncLine.Outcome.REJECTED, "A product id and a positive quantity are required"));
+                continue;
+            }
+            quantities.merge(productId, quantity, Integer::sum);
         }
 
-        //1000 -100*2 =800
-        double cartPrice = cart.getTotalPrice() -
-                (cartItem.getProductPrice()*cartItem.getQuantity());
-
-        //gia moi 200
-        cartItem.setProductPrice(product.getSpecialPrice());
+        Map<Long, CartLine> lines = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if(product == null) {
+                rejected.add(syncLine(productId, quantity, CartSyncLine.Outcome.REJECTED, "Product not found"));
+                return;
+            }
+            int available = inventoryService.available(product);
+            if(available < quantity) {
+                rejected.add(syncLine(productId, quantity, CartSyncLine.Outcome.REJECTED,
+                        "Only " + available + " of " + product.getProductName() + " available"));
+                return;
+            }
+            lines.put(productId, new CartLine(productId, quantity, product.getDiscount(), product.getSpecialPrice(),
+                    product.getPriceVersion()));
+        });
 
-        //800 + 200*2
-        cart.setTotalPrice(cartPrice +
-                (cartItem.getProductPrice()*cartItem.getQuantity()));
+        //diff against the current cart; a rejected product keeps whatever line the cart already had
+        List<CartSyncLine> report = new ArrayList<>();
+        CartState cart = cartStore.update(() -> cartStore.getOrCreate(emailId, authUtil::loggedInUserId), current -> {
+            report.clear();
+            Map<Long, CartLine> next = new LinkedHashMap<>(lines);
+            List<CartSyncLine> removed = new ArrayList<>();
+            for(CartLine existing : current.lines()) {
+                if(!lines.containsKey(existing.productId())) {
+                    if(quantities.containsKey(existing.productId())) {
+                        next.put(existing.productId(), existing);
+                    } else {
+                        removed.add(syncLine(existing.productId(), existing.quantity(), CartSyncLine.Outcome.REMOVED, null));
+                    }
+                }
+            }
+            lines.values().forEach(line -> {
+                CartLine existing = current.line(line.productId());
+                CartSyncLine.Outcome outcome = existing == null ? CartSyncLine.Outcome.ADDED
+                        : existing.equals(line) ? CartSyncLine.Outcome.UNCHANGED : CartSyncLine.Outcome.UPDATED;
+                report.add(syncLine(line.productId(), line.quantity(), outcome, null));
+            });
+            report.addAll(removed);
+            if(report.stream().anyMatch(line -> line.getOutcome() != CartSyncLine.Outcome.UNCHANGED)) {
+                current.replaceLines(next.values());
+            }
+        });
+        report.addAll(rejected);
+
+        return CartSyncResponse.builder()
+                .cartId(cart.getCartId())
+                .totalPrice(cart.totalPrice())
+                .changed((int) report.stream().filter(line -> line.getOutcome() == CartSyncLine.Outcome.ADDED
+                        || line.getOutcome() == CartSyncLine.Outcome.UPDATED
+                        || line.getOutcome() == CartSyncLine.Outcome.REMOVED).count())
+                .lines(List.copyOf(report))
+                .build();
+    }
 
-        cartItem = cartItemRepository.save(cartItem);
+    private static CartSyncLine syncLine(Long productId, Integer quantity, CartSyncLine.Outcome outcome, String message) {
+        return CartSyncLine.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .outcome(outcome)
+                .message(message)
+                .build();
     }
 
-    @Transactional
-    @Override
-    public String createOrUpdateCartWithItems(List<CartItemsDTO> cartItems) {
-        //get user eamil
-        String emailId = authUtil.loggedInEmail();
-        //check if an existing cart is available or new cart
-        Cart existingCart = cartRepository.findCartByEmail(emailId);
-        if(existingCart == null) {
-            existingCart = new Cart();
-            existingCart.setTotalPrice(0.00);
-            existingCart.setUser(authUtil.loggedInUser());
-            existingCart = cartRepository.save(existingCart);
-        } else {
-            //clear all current items in the existing cart
-            cartItemRepository.deleteAllByCartId(existingCart.getCartId());
-        }
+    /**
+     * Reprices lines priced before a product update, with the product columns the response
+     * reads anyway, so a resident cart costs one statement.
+     */
+    private CartDTO toRepricedCartDto(CartState cart, String emailId) {
+        Long cartId = cart.getCartId();
+        Map<Long, CartProductView> products = cartProductReader.find(productIdsOf(cart.lines()));
+        CartState repriced = cartPricingService.refresh(cart, products, () -> {
+            CartState current = cartStore.find(emailId);
+            if(current == null || !current.getCartId().equals(cartId)) {
+                throw new ResourceNotFoundException("Cart","cartId",cartId);
+            }
+            return current;
+        });
+        return toCartDto(repriced, products);
+    }
 
-        double totalPrice  = 0;
-        //process each item in the request to add to the cart
-        for(CartItemsDTO cartItemDTO : cartItems) {
-            Long productId = cartItemDTO.getProductId();
-            Integer quantity = cartItemDTO.getQuantity();
+    private CartDTO toCartDto(CartState cart) {
+        return toCartDto(cart, null);
+    }
 
-            //find the product by id
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Product","productId",productId));
-
-            //directly update product stock and total price
-            //product.setQuantity(product.getQuantity() - quantity);
-            totalPrice += product.getSpecialPrice()*quantity;
-
-            // create and save cart item
-            CartItem cartItem = new CartItem();
-            cartItem.setProduct(product);
-            cartItem.setCart(existingCart);
-            cartItem.setQuantity(quantity);
-            cartItem.setProductPrice(product.getSpecialPrice());
-            cartItem.setDiscount(product.getDiscount());
-            cartItemRepository.save(cartItem);
+    /**
+     * @param products the cart's products when the caller already has them, null to look them up
+     */
+    private CartDTO toCartDto(CartState cart, Map<Long, CartProductView> products) {
+        List<CartLine> lines;
+        CartDTO cartDTO = new CartDTO();
+        synchronized (cart) {
+            lines = cart.lines();
+            cartDTO.setTotalPrice(cart.totalPrice());
+        }
+        cartDTO.setCartId(cart.getCartId());
+        if(lines.isEmpty()) {
+            return cartDTO;
         }
 
-        //update the cart total price and save
-        existingCart.setTotalPrice(totalPrice);
-        cartRepository.save(existingCart);
-        return "Cart created/updated with the new items successfully";
-    }
+        if(products == null) {
+            products = cartProductReader.find(productIdsOf(lines));
+        }
 
-    private Cart createCart() {
-        Cart userCart = cartRepository.findCartByEmail(authUtil.loggedInEmail());
-        if(userCart != null) {
-            return userCart;
+        //quantity, discount and unit price come from the line, the cart total is built from them
+        List<CartLineDTO> lineDTOs = new ArrayList<>(lines.size());
+        for(CartLine line : lines) {
+            CartProductView product = products.get(line.productId());
+            if(product == null) {
+                continue;
+            }
+            lineDTOs.add(new CartLineDTO(product.productId(), product.productName(), product.image(),
+                    line.quantity(), product.price(), line.discount(), line.productPrice()));
         }
-        Cart cart = new Cart();
-        cart.setTotalPrice(0.00);
-        cart.setUser(authUtil.loggedInUser());
-        Cart newCart = cartRepository.save(cart);
-        return newCart;
+        cartDTO.setProducts(lineDTOs);
+        return cartDTO;
     }
 
-
+    private static List<Long> productIdsOf(List<CartLine> lines) {
+        return lines.stream().map(CartLine::productId).toList();
+    }
 }
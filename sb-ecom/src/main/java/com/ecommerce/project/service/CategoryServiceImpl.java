@@ -1,5 +1,8 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.catalog.ProductCatalogCache;
+import com.ecommerce.project.catalog.ProductFacetEngine;
+import com.ecommerce.project.catalog.ProductSearchIndex;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
 import com.ecommerce.project.model.Category;
@@ -27,6 +30,15 @@ public class CategoryServiceImpl implements  CategoryService{
     @Autowired
     private ModelMapper modelMapper = new ModelMapper();
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private ProductFacetEngine productFacetEngine;
+
     @Override
     public CategoryResponse getAllCategories(Integer pageNumber, Integer pageSize,String sortBy, String sortOrder) throws APIException {
 
@@ -69,6 +81,9 @@ public class CategoryServiceImpl implements  CategoryService{
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "categoryId", categoryId));
 
         categoryRepository.delete(category);
+        productSearchIndex.removeCategory(categoryId);
+        productFacetEngine.removeCategory(categoryId);
+        productCatalogCache.evictAll();
         return modelMapper.map(category,CategoryDTO.class);
     }
 
@@ -81,6 +96,9 @@ public class CategoryServiceImpl implements  CategoryService{
         Category category = modelMapper.map(categoryDTO,Category.class);
         category.setCategoryId(categoryId);
         savedCategory = categoryRepository.save(category);
+        productSearchIndex.renameCategory(categoryId, savedCategory.getCategoryName());
+        productFacetEngine.renameCategory(categoryId, savedCategory.getCategoryName());
+        productCatalogCache.evictAll();
         return modelMapper.map(savedCategory, CategoryDTO.class);
 
     }
@@ -0,0 +1,109 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.IdempotencyRecord;
+import com.ecommerce.project.repositories.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key}. The key is claimed and the result
+ * stored in the caller's transaction: a concurrent duplicate blocks on the uncommitted key row
+ * and then replays the committed result, and a failed execution leaves no key behind so the
+ * client can retry it. Keys live for {@code idempotency.ttl-hours}.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final long ttlHours;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.ttlHours = ttlHours;
+    }
+
+    /**
+     * @param scope   who the key belongs to
+     * @param request the request arguments; a key reused with different arguments is rejected
+     */
+    @Transactional
+    public <T> T execute(String scope, String key, List<?> request, Class<T> resultType, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new APIException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(request);
+        LocalDateTime now = LocalDateTime.now();
+
+        if (idempotencyRecordRepository.claim(scope, key, requestHash, now, now.plusHours(ttlHours)) == 0) {
+            return replay(scope, key, requestHash, resultType);
+        }
+
+        T result = action.get();
+        idempotencyRecordRepository.complete(scope, key, write(result));
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public int purgeExpired() {
+        int purged = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+        return purged;
+    }
+
+    private <T> T replay(String scope, String key, String requestHash, Class<T> resultType) {
+        IdempotencyRecord record = idempotencyRecordRepository.findById(new IdempotencyRecord.Key(scope, key))
+                .orElseThrow(() -> new APIException("Idempotency-Key " + key + " could not be read back, retry the request"));
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new APIException("Idempotency-Key " + key + " was already used for a different request");
+        }
+        try {
+            return objectMapper.readValue(record.getResponseBody(), resultType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response for idempotency key " + key + " is not readable", e);
+        }
+    }
+
+    private String write(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be stored for replay", e);
+        }
+    }
+
+    private String hash(List<?> request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request could not be fingerprinted", e);
+        }
+    }
+}
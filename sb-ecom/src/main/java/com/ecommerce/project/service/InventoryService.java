@@ -0,0 +1,336 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.catalog.ProductCatalogCache;
+import com.ecommerce.project.catalog.ProductFacetEngine;
+import com.ecommerce.project.catalog.ProductSearchIndex;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.inventory.FlashSaleSoldOutException;
+import com.ecommerce.project.inventory.FlashSaleStock;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.StockReservation;
+import com.ecommerce.project.model.StockReservationLine;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Owns products.quantity. Stock is taken with one batched conditional UPDATE per order, so
+ * concurrent checkouts can never drive a product below zero, and given back the same way.
+ * Stock can also be held for a user ahead of the order; a hold that is neither used nor
+ * cancelled within {@code inventory.reservation.ttl-minutes} is released by a sweep.
+ * Products in a flash sale are served from {@link FlashSaleStock} instead of their row.
+ */
+@Service
+public class InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    private static final String TAKE_STOCK =
+            "update products set quantity = quantity - ? where product_id = ? and quantity >= ?";
+    private static final String RETURN_STOCK =
+            "update products set quantity = quantity + ? where product_id = ?";
+    private static final String EDIT_STOCK =
+            "update products set quantity = coalesce(quantity, 0) + ? " +
+            "where product_id = ? and coalesce(quantity, 0) + ? >= 0 returning quantity";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductFacetEngine productFacetEngine;
+    private final ProductSearchIndex productSearchIndex;
+    private final FlashSaleStock flashSaleStock;
+    private final long ttlMinutes;
+    private final int sweepBatchSize;
+
+    public InventoryService(JdbcTemplate jdbcTemplate,
+                            ProductRepository productRepository,
+                            StockReservationRepository stockReservationRepository,
+                            ProductCatalogCache productCatalogCache,
+                            ProductFacetEngine productFacetEngine,
+                            ProductSearchIndex productSearchIndex,
+                            FlashSaleStock flashSaleStock,
+                            @Value("${inventory.reservation.ttl-minutes:15}") long ttlMinutes,
+                            @Value("${inventory.reservation.sweep-batch-size:200}") int sweepBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.productCatalogCache = productCatalogCache;
+        this.productFacetEngine = productFacetEngine;
+        this.productSearchIndex = productSearchIndex;
+        this.flashSaleStock = flashSaleStock;
+        this.ttlMinutes = ttlMinutes;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    /**
+     * Units a buyer can still get: the flash-sale counters for a product on sale, the row otherwise.
+     */
+    public int available(Product product) {
+        Integer onSale = flashSaleStock.available(product.getProductId());
+        return onSale != null ? onSale : product.getQuantity();
+    }
+
+    /**
+     * Takes the quantities off stock, all or nothing.
+     *
+     * @throws APIException naming the first product without enough stock
+     */
+    @Transactional
+    public void reserve(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        //flash-sale lines first, they fail fast without touching the database
+        Map<Long, Integer> onSale;
+        try {
+            onSale = flashSaleStock.take(quantities);
+        } catch (FlashSaleSoldOutException e) {
+            throw new APIException("Product " + productName(e.getProductId()) + " is sold out");
+        }
+        if (!onSale.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        flashSaleStock.giveBack(onSale);
+                    }
+                }
+            });
+        }
+        Map<Long, Integer> fromRows = without(quantities, onSale);
+        if (fromRows.isEmpty()) {
+            return;
+        }
+
+        //product id order, so two orders sharing products lock their rows in the same order
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(fromRows).entrySet());
+        List<Object[]> args = new ArrayList<>(lines.size());
+        lines.forEach(line -> args.add(new Object[]{line.getValue(), line.getKey(), line.getValue()}));
+
+        int[] updated = jdbcTemplate.batchUpdate(TAKE_STOCK, args);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                //throwing rolls back the lines already taken in this batch
+                throw new APIException("Product " + productName(lines.get(i).getKey()) + " does not have "
+                        + lines.get(i).getValue() + " units in stock");
+            }
+        }
+        stockChanged(fromRows, -1);
+    }
+
+    @Transactional
+    public void release(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> onSale = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (flashSaleStock.available(productId) != null) {
+                onSale.put(productId, quantity);
+            }
+        });
+        if (!onSale.isEmpty()) {
+            //back on sale only once the cancellation is committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    flashSaleStock.giveBack(onSale);
+                }
+            });
+        }
+        Map<Long, Integer> toRows = without(quantities, onSale);
+        if (toRows.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(toRows.size());
+        new TreeMap<>(toRows).forEach((productId, quantity) -> args.add(new Object[]{quantity, productId}));
+        jdbcTemplate.batchUpdate(RETURN_STOCK, args);
+        stockChanged(toRows, 1);
+    }
+
+    /**
+     * Holds stock for the user until the order is placed, replacing any earlier hold.
+     */
+    @Transactional
+    public StockReservation hold(Long userId, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            throw new APIException("Cart is empty");
+        }
+        for (StockReservation previous : stockReservationRepository.findHeldByUserIdForUpdate(userId)) {
+            releaseHeld(previous, StockReservation.RELEASED);
+        }
+        reserve(quantities);
+
+        StockReservation reservation = new StockReservation();
+        reservation.setUserId(userId);
+        reservation.setStatus(StockReservation.HELD);
+        reservation.setCreatedAt(LocalDateTime.now());
+        reservation.setExpiresAt(reservation.getCreatedAt().plusMinutes(ttlMinutes));
+        quantities.forEach((productId, quantity) ->
+                reservation.getLines().add(new StockReservationLine(productId, quantity)));
+        return stockReservationRepository.save(reservation);
+    }
+
+    /**
+     * @return whether the user had a hold to release
+     */
+    @Transactional
+    public boolean cancelHold(Long userId) {
+        List<StockReservation> held = stockReservationRepository.findHeldByUserIdForUpdate(userId);
+        held.forEach(reservation -> releaseHeld(reservation, StockReservation.RELEASED));
+        return !held.isEmpty();
+    }
+
+    /**
+     * Takes stock for a new order. A hold for exactly these quantities is confirmed as is,
+     * otherwise any hold is given back and the stock is taken now.
+     */
+    @Transactional
+    public void reserveForOrder(Long userId, Long orderId, Map<Long, Integer> quantities) {
+        for (StockReservation held : stockReservationRepository.findHeldByUserIdForUpdate(userId)) {
+            if (quantitiesOf(held).equals(quantities)) {
+                held.setStatus(StockReservation.CONFIRMED);
+                held.setOrderId(orderId);
+                stockReservationRepository.save(held);
+                return;
+            }
+            releaseHeld(held, StockReservation.RELEASED);
+        }
+        reserve(quantities);
+    }
+
+    /**
+     * Applies a seller's stock edit as a delta on the row, so units checkouts took since the
+     * product was read are kept instead of being overwritten. The caller refreshes the caches.
+     *
+     * @return the stock after the edit
+     */
+    @Transactional
+    public int applyStockEdit(Long productId, int delta) {
+        List<Integer> rows = jdbcTemplate.queryForList(EDIT_STOCK, Integer.class, delta, productId, delta);
+        if (rows.isEmpty()) {
+            throw new APIException("Stock of " + productName(productId) + " was sold meanwhile and cannot go below zero");
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * Gives the stock of a cancelled order back.
+     */
+    @Transactional
+    public void releaseForOrder(Long orderId, List<OrderItem> orderItems) {
+        release(quantitiesOf(orderItems));
+        stockReservationRepository.findFirstByOrderIdAndStatus(orderId, StockReservation.CONFIRMED)
+                .ifPresent(reservation -> {
+                    reservation.setStatus(StockReservation.RELEASED);
+                    stockReservationRepository.save(reservation);
+                });
+    }
+
+    /**
+     * Gives the stock of many cancelled orders back with one batch for all of their products.
+     */
+    @Transactional
+    public void releaseForOrders(Map<Long, Map<Long, Integer>> quantitiesByOrder) {
+        if (quantitiesByOrder.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> total = new HashMap<>();
+        quantitiesByOrder.values().forEach(quantities -> quantities.forEach((productId, quantity) ->
+                total.merge(productId, quantity, Integer::sum)));
+        release(total);
+        stockReservationRepository.releaseConfirmedForOrders(quantitiesByOrder.keySet());
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:60000}")
+    @Transactional
+    public int releaseExpired() {
+        List<Long> expiredIds = stockReservationRepository.lockExpiredIds(LocalDateTime.now(), sweepBatchSize);
+        if (expiredIds.isEmpty()) {
+            return 0;
+        }
+        List<StockReservation> expired = stockReservationRepository.findAllById(expiredIds);
+        expired.forEach(reservation -> releaseHeld(reservation, StockReservation.EXPIRED));
+        log.info("Released {} expired stock reservations", expired.size());
+        return expired.size();
+    }
+
+    public static Map<Long, Integer> quantitiesOf(Collection<OrderItem> orderItems) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : orderItems) {
+            if (item.getProduct() != null && item.getQuantity() != null) {
+                quantities.merge(item.getProduct().getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        return quantities;
+    }
+
+    private static Map<Long, Integer> quantitiesOf(StockReservation reservation) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        reservation.getLines().forEach(line -> quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum));
+        return quantities;
+    }
+
+    private void releaseHeld(StockReservation reservation, String status) {
+        release(quantitiesOf(reservation));
+        reservation.setStatus(status);
+        stockReservationRepository.save(reservation);
+    }
+
+    private String productName(Long productId) {
+        return productRepository.findById(productId)
+                .map(Product::getProductName)
+                .orElse(String.valueOf(productId));
+    }
+
+    private static Map<Long, Integer> without(Map<Long, Integer> quantities, Map<Long, Integer> handled) {
+        if (handled.isEmpty()) {
+            return quantities;
+        }
+        Map<Long, Integer> rest = new HashMap<>(quantities);
+        rest.keySet().removeAll(handled.keySet());
+        return rest;
+    }
+
+    private void stockChanged(Map<Long, Integer> quantities, int sign) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            deltas.put(productId, sign * quantity);
+            productCatalogCache.evict(productId);
+        });
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            adjustStock(deltas);
+            return;
+        }
+        //the facet snapshot and search index are shared, a rolled back checkout must not leave its stock change in them
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                adjustStock(deltas);
+            }
+        });
+    }
+
+    private void adjustStock(Map<Long, Integer> deltas) {
+        productFacetEngine.adjustStock(deltas);
+        productSearchIndex.adjustStock(deltas);
+    }
+}
@@ -1,15 +1,20 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.cart.CartLine;
+import com.ecommerce.project.cart.CartState;
+import com.ecommerce.project.cart.CartStore;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.DtoMapper;
 import com.ecommerce.project.model.*;
+import com.ecommerce.project.outbox.OrderEvents;
+import com.ecommerce.project.outbox.OutboxPublisher;
 import com.ecommerce.project.payload.OrderDTO;
 import com.ecommerce.project.payload.OrderItemDTO;
 import com.ecommerce.project.payload.OrderResponse;
 import com.ecommerce.project.repositories.*;
 import com.ecommerce.project.util.AuthUtil;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -20,121 +25,142 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderServiceImpl implements  OrderService{
 
-    @Autowired
-    private CartRepository cartRepository;
+    //order fields sellers can sort by, all of them are copied onto seller_orders
+    private static final List<String> SELLER_ORDER_SORTS = List.of("orderId", "orderDate", "placedAt", "totalAmount");
 
     @Autowired
     private AddressRepository addressRepository;
 
     @Autowired
-    private PaymentRepository paymentRepository;
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderBatchWriter orderBatchWriter;
 
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private OrderItemRepository orderItemRepository;
+    private DtoMapper dtoMapper;
 
     @Autowired
-    private ProductRepository productRepository;
+    private AuthUtil authUtil;
 
     @Autowired
-    private CartService cartService;
+    private OutboxPublisher outboxPublisher;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CartStore cartStore;
 
     @Autowired
-    private AuthUtil authUtil;
+    private InventoryService inventoryService;
+
+    @Autowired
+    private SellerOrderIndexService sellerOrderIndexService;
 
     @Override
     @Transactional
     public OrderDTO placeOrder(String emailId, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage) {
-        //get user cart
-        Cart cart = cartRepository.findCartByEmail(emailId);
+        //get user cart, the cart store holds its current state
+        CartState cart = cartStore.find(emailId);
         if(cart==null){
             throw new ResourceNotFoundException("Cart","email",emailId);
         }
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address","addressId",addressId));
 
+        List<CartLine> cartLines = cart.lines();
+        if(cartLines.isEmpty()) {
+            throw new APIException("Cart is empty");
+        }
+        //payments are inserted over jdbc, so the entity validation has to happen here
+        if(paymentMethod == null || paymentMethod.isBlank() || paymentMethod.length() < 2) {
+            throw new APIException("Payment method must contain at least 2 characters");
+        }
+
         //create a new order with payment infor
         Order order = new Order();
         order.setEmail(emailId);
-        order.setUser(authUtil.loggedInUser());
         order.setOrderDate(LocalDate.now());
         order.setPlacedAt(java.time.LocalDateTime.now());
-        order.setTotalAmount(cart.getTotalPrice());
         order.setOrderStatus("PENDING");
         order.setAddress(address);
 
         Payment payment = new Payment(paymentMethod,pgPaymentId,pgStatus,pgResponseMessage,pgName);
         payment.setOrder(order);
-        payment = paymentRepository.save(payment);
         order.setPayment(payment);
 
-        Order savedOrder = orderRepository.save(order);
-
-        //get items from cart into the order items
-        List<CartItem> cartItems = cart.getCartItems();
-        if(cartItems.isEmpty()) {
-            throw new APIException("Cart is empty");
-        }
+        //get items from cart into the order items, all products in one query
+        Map<Long, Product> products = productRepository.findAllById(
+                        cartLines.stream().map(CartLine::productId).toList()).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
 
         List<OrderItem> orderItems = new ArrayList<>();
         double orderSubtotal = 0.0;
-        
-        for(CartItem cartItem : cartItems){
+
+        for(CartLine line : cartLines){
+            Product product = products.get(line.productId());
+            if(product == null) {
+                throw new ResourceNotFoundException("Product","productId",line.productId());
+            }
+            //a line priced before the last product update is charged at the current price
+            CartLine cartLine = CartPricingService.current(line, product);
             OrderItem orderItem = new OrderItem();
-            orderItem.setProduct(cartItem.getProduct());
-            orderItem.setQuantity(cartItem.getQuantity());
-            orderItem.setDiscount(cartItem.getDiscount());
-            orderItem.setOrderProductPrice(cartItem.getProductPrice());
-            
+            orderItem.setProduct(product);
+            orderItem.setQuantity(cartLine.quantity());
+            orderItem.setDiscount(cartLine.discount());
+            orderItem.setOrderProductPrice(cartLine.productPrice());
+
             // Calculate tax for this item (7% of product price)
-            double itemSubtotal = cartItem.getProductPrice() * cartItem.getQuantity();
+            double itemSubtotal = cartLine.productPrice() * cartLine.quantity();
             double itemTax = itemSubtotal * 0.07;
             double itemTotalAfterTax = itemSubtotal + itemTax;
-            
+
             orderItem.setTaxAmount(itemTax);
             orderItem.setItemTotalAfterTax(itemTotalAfterTax);
-            orderItem.setOrder(savedOrder);
-            
+            orderItem.setOrder(order);
+
             orderItems.add(orderItem);
             orderSubtotal += itemSubtotal;
         }
 
-        orderItems = orderItemRepository.saveAll(orderItems);
-        
         // Calculate total tax and total after tax for the order
         double totalTax = orderSubtotal * 0.07;
         double totalAfterTax = orderSubtotal + totalTax;
-        
-        savedOrder.setTaxAmount(totalTax);
-        savedOrder.setTotalAmountAfterTax(totalAfterTax);
-        savedOrder.setTotalAmount(orderSubtotal); // Keep subtotal in totalAmount
-        savedOrder = orderRepository.save(savedOrder);
-
-        //update product stock
-        cart.getCartItems().forEach(item -> {
-            int quantity = item.getQuantity();
-            Product product = item.getProduct();
-            product.setQuantity(product.getQuantity() - quantity);
-            productRepository.save(product);
-
-            //clear cart
-            cartService.deleteProductFromCart(cart.getCartId(), item.getProduct().getProductId());
-        });
+
+        order.setTaxAmount(totalTax);
+        order.setTotalAmountAfterTax(totalAfterTax);
+        order.setTotalAmount(orderSubtotal); // Keep subtotal in totalAmount
+
+        //payment and order in one statement, then every item in one batch
+        orderBatchWriter.insertOrder(order, cart.getUserId());
+
+        //take the stock for every line in one batched conditional update, oversold lines fail the order
+        Map<Long, Integer> quantities = InventoryService.quantitiesOf(orderItems);
+        inventoryService.reserveForOrder(cart.getUserId(), order.getOrderId(), quantities);
+
+        orderBatchWriter.insertItems(order.getOrderId(), orderItems);
+        sellerOrderIndexService.index(order, products.values());
+        //sales counters are updated after commit by the outbox
+        outboxPublisher.publish(OrderEvents.ORDER_PLACED, order.getOrderId(),
+                new OrderEvents.OrderLines(order.getOrderId(), quantities));
+
+        //take the ordered products out of the cart, anything added since the cart was read stays
+        cartStore.removeLines(cart, cartLines.stream().map(CartLine::productId).toList());
 
         //send back the ordersummary
-        OrderDTO orderDTO = modelMapper.map(savedOrder, OrderDTO.class);
+        OrderDTO orderDTO = dtoMapper.toOrderDto(order);
         orderItems.forEach(item ->
                 orderDTO.getOrderItems().add(
-                        modelMapper.map(item, OrderItemDTO.class)
+                        dtoMapper.toOrderItemDto(item)
                 ));
         orderDTO.setAddressId(addressId);
         return orderDTO;
@@ -149,7 +175,7 @@ public class OrderServiceImpl implements  OrderService{
         Page<Order> pageOrders = orderRepository.findAll(pageDetails);
         List<Order> orders = pageOrders.getContent();
         List<OrderDTO> orderDTOs = orders.stream()
-                .map(order -> modelMapper.map(order, OrderDTO.class))
+                .map(order -> dtoMapper.toOrderDto(order))
                 .toList();
         OrderResponse orderResponse = new OrderResponse();
         orderResponse.setContent(orderDTOs);
@@ -162,47 +188,60 @@ public class OrderServiceImpl implements  OrderService{
     }
 
     @Override
+    @Transactional
     public OrderDTO updateOrder(Long orderId, String status) {
-        Order order = orderRepository.findById(orderId)
+        //locked, so the status read below is the one this change replaces
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order","orderId",orderId));
+        //keep units sold net of cancelled orders when an admin cancels or reopens one
+        boolean wasCancelled = "CANCELLED".equalsIgnoreCase(order.getOrderStatus());
+        boolean isCancelled = "CANCELLED".equalsIgnoreCase(status);
+        Map<Long, Integer> quantities = InventoryService.quantitiesOf(order.getOrderItems());
+        if (!wasCancelled && isCancelled) {
+            inventoryService.releaseForOrder(orderId, order.getOrderItems());
+            outboxPublisher.publish(OrderEvents.ORDER_CANCELLED, orderId, new OrderEvents.OrderLines(orderId, quantities));
+        } else if (wasCancelled && !isCancelled) {
+            inventoryService.reserve(quantities);
+            outboxPublisher.publish(OrderEvents.ORDER_REOPENED, orderId, new OrderEvents.OrderLines(orderId, quantities));
+        }
         order.setOrderStatus(status);
         orderRepository.save(order);
-        return modelMapper.map(order, OrderDTO.class);
+        return dtoMapper.toOrderDto(order);
     }
 
     @Override
+    @Transactional
     public OrderResponse getAllSellerOrders(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        if (!SELLER_ORDER_SORTS.contains(sortBy)) {
+            throw new APIException("Seller orders can be sorted by " + String.join(", ", SELLER_ORDER_SORTS));
+        }
+        //order id breaks ties so pages do not overlap
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
+                ? Sort.by(sortBy).ascending().and(Sort.by("orderId").ascending())
+                : Sort.by(sortBy).descending().and(Sort.by("orderId").descending());
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
 
-        User seller = authUtil.loggedInUser();
+        Long sellerId = authUtil.loggedInUserId();
 
-        Page<Order> pageOrders = orderRepository.findAll(pageDetails);
+        //page and count over the seller's index rows, then load just those orders with their items
+        Page<SellerOrder> pageIndex = sellerOrderIndexService.findBySeller(sellerId, pageDetails);
+        List<Long> orderIds = pageIndex.getContent().stream().map(SellerOrder::getOrderId).toList();
+        Map<Long, Order> orders = orderIds.isEmpty() ? Map.of()
+                : orderRepository.findWithItemsByOrderIdIn(orderIds).stream()
+                        .collect(Collectors.toMap(Order::getOrderId, Function.identity()));
 
-        List<Order> sellerOrders = pageOrders.getContent().stream()
-                .filter(order -> order.getOrderItems().stream()
-                        .anyMatch(orderItem -> {
-                            var product = orderItem.getProduct();
-                            if (product == null || product.getUser() == null) {
-                                return false;
-                            }
-                            return product.getUser().getUserId().equals(
-                                    seller.getUserId());
-                        }))
-                .toList();
-
-        List<OrderDTO> orderDTOs = sellerOrders.stream()
-                .map(order -> modelMapper.map(order, OrderDTO.class))
+        List<OrderDTO> orderDTOs = orderIds.stream()
+                .map(orders::get)
+                .filter(Objects::nonNull)
+                .map(order -> dtoMapper.toOrderDto(order))
                 .toList();
         OrderResponse orderResponse = new OrderResponse();
         orderResponse.setContent(orderDTOs);
-        orderResponse.setPageNumber(pageOrders.getNumber());
-        orderResponse.setPageSize(pageOrders.getSize());
-        orderResponse.setTotalElements(pageOrders.getTotalElements());
-        orderResponse.setTotalPages(pageOrders.getTotalPages());
-        orderResponse.setLastPage(pageOrders.isLast());
+        orderResponse.setPageNumber(pageIndex.getNumber());
+        orderResponse.setPageSize(pageIndex.getSize());
+        orderResponse.setTotalElements(pageIndex.getTotalElements());
+        orderResponse.setTotalPages(pageIndex.getTotalPages());
+        orderResponse.setLastPage(pageIndex.isLast());
         return orderResponse;
     }
 
@@ -0,0 +1,377 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.catalog.ProductFacetEngine;
+import com.ecommerce.project.catalog.ProductSearchDocument;
+import com.ecommerce.project.catalog.ProductSearchIndex;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.seller.ProductImportError;
+import com.ecommerce.project.payload.seller.ProductImportReport;
+import com.ecommerce.project.payload.seller.ProductImportRow;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.util.AuthUtil;
+import com.ecommerce.project.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import for sellers. Rows are parsed as they arrive and handled in chunks:
+ * each chunk is validated with one duplicate lookup, then inserted in its own transaction
+ * through Hibernate's JDBC batching. A bad row never fails the rest of the import.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetEngine productFacetEngine;
+    private final AuthUtil authUtil;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductImportService(ProductRepository productRepository,
+                                CategoryRepository categoryRepository,
+                                ProductSearchIndex productSearchIndex,
+                                ProductFacetEngine productFacetEngine,
+                                AuthUtil authUtil,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetEngine = productFacetEngine;
+        this.authUtil = authUtil;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * CSV with a header row. Columns are matched by name: categoryId, productName, description,
+     * quantity and price are required, detailDescription and discount are optional.
+     */
+    public ProductImportReport importCsv(InputStream input) {
+        Import run = newImport();
+        try (CsvReader csv = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = csv.readRecord();
+            if (header == null) {
+                throw new APIException("The import is empty");
+            }
+            Map<String, Integer> columns = columns(header);
+
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                long rowNumber = ++run.totalRows;
+                try {
+                    run.add(rowNumber, toRow(record, columns));
+                } catch (IllegalArgumentException e) {
+                    run.fail(rowNumber, field(record, columns, "productName"), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            run.abort(e);
+        }
+        return run.finish();
+    }
+
+    /**
+     * One JSON object per line with the same fields as the CSV columns.
+     */
+    public ProductImportReport importNdjson(InputStream input) {
+        Import run = newImport();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                long rowNumber = ++run.totalRows;
+                try {
+                    run.add(rowNumber, objectMapper.readValue(line, ProductImportRow.class));
+                } catch (JsonProcessingException e) {
+                    run.fail(rowNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+        } catch (IOException e) {
+            run.abort(e);
+        }
+        return run.finish();
+    }
+
+    private Import newImport() {
+        User seller = authUtil.loggedInUser();
+        Map<Long, String> categories = categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(Category::getCategoryId, Category::getCategoryName));
+        return new Import(seller.getUserId(), seller.getUserName(), categories);
+    }
+
+    private static Map<String, Integer> columns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("categoryid", "productname", "description", "quantity", "price")) {
+            if (!columns.containsKey(required)) {
+                throw new APIException("The CSV header is missing the column " + required);
+            }
+        }
+        return columns;
+    }
+
+    private static ProductImportRow toRow(List<String> record, Map<String, Integer> columns) {
+        ProductImportRow row = new ProductImportRow();
+        row.setCategoryId(parseLong(field(record, columns, "categoryId"), "categoryId"));
+        row.setProductName(field(record, columns, "productName"));
+        row.setDescription(field(record, columns, "description"));
+        row.setDetailDescription(field(record, columns, "detailDescription"));
+        row.setQuantity(parseInt(field(record, columns, "quantity"), "quantity"));
+        row.setPrice(parseDouble(field(record, columns, "price"), "price"));
+        row.setDiscount(parseDouble(field(record, columns, "discount"), "discount"));
+        return row;
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name.toLowerCase(Locale.ROOT));
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Long parseLong(String value, String column) {
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    private static Integer parseInt(String value, String column) {
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + value);
+        }
+    }
+
+    private static Double parseDouble(String value, String column) {
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    private record PendingRow(long rowNumber, ProductImportRow row) {
+    }
+
+    /**
+     * State of one import run: the current chunk, counters and the error report.
+     */
+    private class Import {
+        private final Long sellerId;
+        private final String sellerName;
+        private final Map<Long, String> categories;
+        private final Set<String> seenNames = new HashSet<>();
+        private final List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private final long startedAt = System.nanoTime();
+        private long totalRows;
+        private long imported;
+        private long failed;
+
+        Import(Long sellerId, String sellerName, Map<Long, String> categories) {
+            this.sellerId = sellerId;
+            this.sellerName = sellerName;
+            this.categories = categories;
+        }
+
+        void add(long rowNumber, ProductImportRow row) {
+            chunk.add(new PendingRow(rowNumber, row));
+            if (chunk.size() == CHUNK_SIZE) {
+                flushChunk();
+            }
+        }
+
+        void fail(long rowNumber, String productName, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ProductImportError(rowNumber, productName, message));
+            }
+        }
+
+        void abort(IOException e) {
+            log.warn("Product import stopped after {} rows", totalRows, e);
+            fail(totalRows + 1, null, "Import stopped, the upload could not be read: " + e.getMessage());
+        }
+
+        ProductImportReport finish() {
+            flushChunk();
+            long durationMs = (System.nanoTime() - startedAt) / 1_000_000;
+            log.info("Imported {} of {} products for seller {} in {} ms", imported, totalRows, sellerId, durationMs);
+            return ProductImportReport.builder()
+                    .totalRows(totalRows)
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .durationMs(durationMs)
+                    .build();
+        }
+
+        private void flushChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<PendingRow> valid = new ArrayList<>(chunk.size());
+            for (PendingRow pending : chunk) {
+                String problem = validate(pending.row());
+                if (problem != null) {
+                    fail(pending.rowNumber(), pending.row().getProductName(), problem);
+                } else {
+                    valid.add(pending);
+                }
+            }
+            valid = withoutDuplicates(valid);
+            chunk.clear();
+            if (!valid.isEmpty()) {
+                insert(valid);
+            }
+        }
+
+        private String validate(ProductImportRow row) {
+            if (row.getCategoryId() == null) {
+                return "categoryId is required";
+            }
+            if (!categories.containsKey(row.getCategoryId())) {
+                return "Category not found with categoryId: " + row.getCategoryId();
+            }
+            if (row.getProductName() == null || row.getProductName().isBlank() || row.getProductName().length() < 3) {
+                return "Product name must contain atleast 3 characters";
+            }
+            if (row.getDescription() == null || row.getDescription().isBlank() || row.getDescription().length() < 6) {
+                return "Description must contain atleast 6 characters";
+            }
+            if (row.getQuantity() == null || row.getQuantity() < 0) {
+                return "quantity must be zero or more";
+            }
+            if (row.getPrice() == null || row.getPrice() < 0) {
+                return "price must be zero or more";
+            }
+            if (row.getDiscount() != null && (row.getDiscount() < 0 || row.getDiscount() > 100)) {
+                return "discount must be between 0 and 100";
+            }
+            return null;
+        }
+
+        private List<PendingRow> withoutDuplicates(List<PendingRow> rows) {
+            //one lookup for the whole chunk instead of loading each category's products
+            Set<Long> categoryIds = rows.stream().map(pending -> pending.row().getCategoryId()).collect(Collectors.toSet());
+            Set<String> names = rows.stream().map(pending -> pending.row().getProductName()).collect(Collectors.toSet());
+            Set<String> existing = productRepository.findNamesInCategories(categoryIds, names).stream()
+                    .map(pair -> key((Long) pair[0], (String) pair[1]))
+                    .collect(Collectors.toSet());
+
+            List<PendingRow> unique = new ArrayList<>(rows.size());
+            for (PendingRow pending : rows) {
+                String key = key(pending.row().getCategoryId(), pending.row().getProductName());
+                if (existing.contains(key) || !seenNames.add(key)) {
+                    fail(pending.rowNumber(), pending.row().getProductName(), "Product already exist");
+                } else {
+                    unique.add(pending);
+                }
+            }
+            return unique;
+        }
+
+        private void insert(List<PendingRow> rows) {
+            List<Product> products = new ArrayList<>(rows.size());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(CHUNK_SIZE);
+                    User seller = entityManager.getReference(User.class, sellerId);
+                    for (PendingRow pending : rows) {
+                        Product product = toProduct(pending.row(), seller);
+                        entityManager.persist(product);
+                        products.add(product);
+                    }
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+            } catch (RuntimeException e) {
+                log.warn("Product import chunk of {} rows failed", rows.size(), e);
+                rows.forEach(pending -> fail(pending.rowNumber(), pending.row().getProductName(),
+                        "Could not be saved: " + e.getMessage()));
+                return;
+            }
+            imported += products.size();
+            for (int i = 0; i < products.size(); i++) {
+                index(products.get(i), rows.get(i).row().getCategoryId());
+            }
+        }
+
+        private Product toProduct(ProductImportRow row, User seller) {
+            Product product = new Product();
+            product.setProductName(row.getProductName());
+            product.setDescription(row.getDescription());
+            product.setDetailDescription(row.getDetailDescription());
+            product.setQuantity(row.getQuantity());
+            product.setPrice(row.getPrice());
+            product.setDiscount(row.getDiscount() != null ? row.getDiscount() : 0);
+            product.setSpecialPrice(product.getPrice() - ((product.getDiscount() * 0.01) * product.getPrice()));
+            product.setImage("default.png");
+            product.setCategory(entityManager.getReference(Category.class, row.getCategoryId()));
+            product.setUser(seller);
+            return product;
+        }
+
+        private void index(Product product, Long categoryId) {
+            //built from the row, the detached category and seller references cannot be read
+            ProductSearchDocument document = new ProductSearchDocument(
+                    product.getProductId(), product.getProductName(), product.getDescription(),
+                    categoryId, categories.get(categoryId), product.getPrice(), product.getSpecialPrice(),
+                    product.getDiscount(), product.getQuantity(), product.getAverageRating(),
+                    product.getRatingCount(), sellerId, sellerName);
+            productSearchIndex.index(document);
+            productFacetEngine.update(document);
+        }
+
+        private String key(Long categoryId, String productName) {
+            return categoryId + "|" + productName;
+        }
+    }
+}
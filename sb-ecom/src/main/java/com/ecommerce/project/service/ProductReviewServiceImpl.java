@@ -1,5 +1,8 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.catalog.ProductCatalogCache;
+import com.ecommerce.project.catalog.ProductFacetEngine;
+import com.ecommerce.project.catalog.ProductSearchIndex;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
 import com.ecommerce.project.model.*;
@@ -23,6 +26,9 @@ public class ProductReviewServiceImpl implements ProductReviewService {
     private final ProductRepository productRepository;
     private final OrderItemRepository orderItemRepository;
     private final AuthUtil authUtil;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductFacetEngine productFacetEngine;
+    private final ProductSearchIndex productSearchIndex;
 
     @Override
     @Transactional
@@ -94,6 +100,10 @@ public class ProductReviewServiceImpl implements ProductReviewService {
         product.setRatingCount((int) stats.getCount());
         product.setAverageRating(stats.getCount() == 0 ? 0.0 : stats.getAverage());
         productRepository.save(product);
+        productCatalogCache.evict(product.getProductId());
+        productFacetEngine.update(product);
+        //rating sorts of keyword listings are served from the index
+        productSearchIndex.index(product);
     }
 }
 
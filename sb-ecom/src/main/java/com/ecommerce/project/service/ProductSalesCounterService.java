@@ -0,0 +1,80 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.catalog.ProductCatalogCache;
+import com.ecommerce.project.model.ProductSalesCounter;
+import com.ecommerce.project.outbox.OutboxDispatcher;
+import com.ecommerce.project.repositories.ProductSalesCounterRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the product_sales_counters read model. Order changes reach it through the outbox
+ * ({@link SalesCounterOutboxHandler}), so the counters trail the orders by the outbox lag.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductSalesCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSalesCounterService.class);
+
+    private static final String ADD_UNITS_SOLD =
+            "insert into product_sales_counters (product_id, units_sold) values (?, ?) " +
+            "on conflict (product_id) do update set units_sold = product_sales_counters.units_sold + excluded.units_sold";
+
+    private final ProductSalesCounterRepository productSalesCounterRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxDispatcher outboxDispatcher;
+
+    @Transactional
+    public void recordSale(Map<Long, Integer> quantities) {
+        apply(quantities, 1);
+    }
+
+    @Transactional
+    public void recordCancellation(Map<Long, Integer> quantities) {
+        apply(quantities, -1);
+    }
+
+    /**
+     * Recomputes every counter from order history. Cancelled orders are not counted.
+     */
+    @Transactional
+    public int rebuild() {
+        productSalesCounterRepository.deleteAllCounters();
+        int products = productSalesCounterRepository.insertFromOrderHistory();
+        //the history already counts the orders whose events are still queued
+        outboxDispatcher.skipPending(SalesCounterOutboxHandler.NAME);
+        productCatalogCache.evictAll();
+        log.info("Rebuilt sales counters for {} products", products);
+        return products;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, Long> unitsSold(Collection<Long> productIds) {
+        return productSalesCounterRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductSalesCounter::getProductId, ProductSalesCounter::getUnitsSold));
+    }
+
+    private void apply(Map<Long, Integer> quantities, int sign) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        //product id order, all upserts in one batch
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        new TreeMap<>(quantities).forEach((productId, quantity) -> args.add(new Object[]{productId, (long) sign * quantity}));
+        jdbcTemplate.batchUpdate(ADD_UNITS_SOLD, args);
+        quantities.keySet().forEach(productCatalogCache::evict);
+    }
+}
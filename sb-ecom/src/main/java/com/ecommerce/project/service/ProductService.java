@@ -1,7 +1,9 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.payload.ProductCursorResponse;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.payload.ProductDetailResponse;
+import com.ecommerce.project.payload.ProductFacetResponse;
 import com.ecommerce.project.payload.ProductResponse;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -12,10 +14,18 @@ public interface ProductService {
 
     ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, String keyword, String category);
 
+    ProductCursorResponse getAllProductsAfter(String after, Integer pageSize, String sortBy, String sortOrder, String keyword, String category, boolean withTotal);
+
     ProductResponse searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
+    ProductCursorResponse searchByCategoryAfter(Long categoryId, String after, Integer pageSize, String sortBy, String sortOrder, boolean withTotal);
+
     ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
+    ProductFacetResponse getFacetedProducts(String keyword, Long categoryId, Long sellerId, Integer priceBucket,
+                                            Integer minRating, boolean inStockOnly, Integer pageNumber,
+                                            Integer pageSize, String sortBy, String sortOrder);
+
     ProductDTO updateProduct(Long productId, ProductDTO product);
 
     ProductDTO deleteProduct(Long productId);
@@ -1,42 +1,56 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.cart.CartStore;
+import com.ecommerce.project.catalog.ProductCatalogCache;
+import com.ecommerce.project.catalog.FacetQuery;
+import com.ecommerce.project.catalog.FacetResult;
+import com.ecommerce.project.catalog.ProductCursor;
+import com.ecommerce.project.catalog.ProductFacetEngine;
+import com.ecommerce.project.catalog.ProductSearchDocument;
+import com.ecommerce.project.catalog.ProductSearchIndex;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
-import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.mapper.DtoMapper;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
 import com.ecommerce.project.model.User;
-import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.ProductCursorResponse;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.payload.ProductDetailResponse;
+import com.ecommerce.project.payload.ProductFacetResponse;
 import com.ecommerce.project.payload.ProductResponse;
-import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.CategoryRepository;
-import com.ecommerce.project.repositories.OrderItemRepository;
 import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.projection.ProductDetailView;
+import com.ecommerce.project.repositories.projection.ProductListView;
 import com.ecommerce.project.util.AuthUtil;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
     @Autowired
-    private CartRepository cartRepository;
-
-    @Autowired
-    private CartService cartService;
+    private CartStore cartStore;
 
     @Autowired
     private ProductRepository productRepository;
@@ -45,14 +59,23 @@ public class ProductServiceImpl implements ProductService {
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private OrderItemRepository orderItemRepository;
+    private ModelMapper modelMapper;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private DtoMapper dtoMapper;
 
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private ProductFacetEngine productFacetEngine;
+
     @Value("${project.image}")
     private String path;
 
@@ -61,19 +84,15 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private AuthUtil authUtil;
 
+    @Autowired
+    private InventoryService inventoryService;
+
     @Override
     public ProductDTO addProduct(Long categoryId, ProductDTO productDTO) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "categoryId", categoryId));
 
-        boolean isProductNotPresent = true;
-        List<Product> products = category.getProducts();
-        for(Product value : products) {
-            if (value.getProductName().equals(productDTO.getProductName())) {
-                isProductNotPresent = false;
-                break;
-            }
-        }
+        boolean isProductNotPresent = !productRepository.existsByCategoryAndProductName(category, productDTO.getProductName());
         if (isProductNotPresent) {
             Product product = modelMapper.map(productDTO,Product.class);
             product.setImage("default.png");
@@ -83,6 +102,8 @@ public class ProductServiceImpl implements ProductService {
                     ((product.getDiscount() * 0.01) * product.getPrice());
             product.setSpecialPrice(specialPrice);
             Product savedProduct = productRepository.save(product);
+            productSearchIndex.index(savedProduct);
+            productFacetEngine.update(savedProduct);
             ProductDTO result = mapProductToDto(savedProduct);
             // Tax is already calculated in mapProductToDto
             return result;
@@ -100,6 +121,65 @@ public class ProductServiceImpl implements ProductService {
 
         Pageable pageDetails = PageRequest.of(pageNumber,pageSize,sortByAndOrder);
 
+        Page<ProductListView> pageProducts;
+        if(keyword != null && !keyword.isEmpty() && productSearchIndex.canServe(sortByAndOrder)) {
+            //keyword search is answered by the index, db only loads the page
+            pageProducts = hydrate(productSearchIndex.search(keyword, category, pageDetails));
+        } else {
+            pageProducts = productRepository.findListViews(productFilter(keyword, category), pageDetails);
+        }
+
+        List<ProductDTO> productDTOS = pageProducts.getContent().stream()
+                .map(this::mapViewToDto)
+                .toList();
+
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setContent(productDTOS);
+        productResponse.setPageNumber(pageProducts.getNumber());
+        productResponse.setPageSize(pageProducts.getSize());
+        productResponse.setTotalElements(pageProducts.getTotalElements());
+        productResponse.setTotalPages(pageProducts.getTotalPages());
+        productResponse.setLastPage(pageProducts.isLast());
+        return productResponse;
+    }
+
+    @Override
+    public ProductCursorResponse getAllProductsAfter(String after, Integer pageSize, String sortBy, String sortOrder, String keyword, String category, boolean withTotal) {
+        ProductCursor.checkSortable(sortBy);
+        boolean ascending = sortOrder.equalsIgnoreCase("asc");
+        if(keyword != null && !keyword.isEmpty() && productSearchIndex.canServe(ProductCursor.sort(sortBy, ascending))) {
+            //same matches as the offset listing, the index walks them in keyset order
+            Predicate<ProductSearchDocument> position = after == null || after.isEmpty()
+                    ? document -> true
+                    : ProductCursor.decode(after, sortBy, ascending)::isBefore;
+            List<Long> ids = productSearchIndex.searchAfter(keyword, category, ProductCursor.sort(sortBy, ascending), position, pageSize + 1);
+            ProductCursorResponse productResponse = cursorResponse(listViews(ids), pageSize, sortBy, ascending);
+            if(withTotal) {
+                productResponse.setTotalElements((long) productSearchIndex.count(keyword, category));
+            }
+            return productResponse;
+        }
+        return cursorPage(productFilter(keyword, category), after, pageSize, sortBy, sortOrder, withTotal);
+    }
+
+    @Override
+    public ProductCursorResponse searchByCategoryAfter(Long categoryId, String after, Integer pageSize, String sortBy, String sortOrder, boolean withTotal) {
+        Category category = categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", "categoryId", categoryId));
+
+        ProductCursorResponse productResponse = cursorPage(inCategory(category), after, pageSize, sortBy, sortOrder, withTotal);
+
+        if(productResponse.getContent().isEmpty() && after.isEmpty()) {
+            throw new APIException(category.getCategoryName()+ " category does not have any products ");
+        }
+        return productResponse;
+    }
+
+    private Specification<Product> inCategory(Category category) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("category"), category);
+    }
+
+    private Specification<Product> productFilter(String keyword, String category) {
         Specification<Product> spec = Specification.where(null);
         if(keyword != null && !keyword.isEmpty()) {
             spec = spec.and((root, query, criteriaBuilder) ->
@@ -110,25 +190,57 @@ public class ProductServiceImpl implements ProductService {
             spec = spec.and((root, query, criteriaBuilder) ->
                     criteriaBuilder.like(root.get("category").get("categoryName"), category));
         }
+        return spec;
+    }
 
-        Page<Product> pageProducts = productRepository.findAll(spec, pageDetails);
+    // keyset page: reads pageSize + 1 rows after the cursor instead of OFFSET, count only on request
+    private ProductCursorResponse cursorPage(Specification<Product> filter, String after, Integer pageSize, String sortBy, String sortOrder, boolean withTotal) {
+        ProductCursor.checkSortable(sortBy);
+        boolean ascending = sortOrder.equalsIgnoreCase("asc");
 
-        List<Product> products = pageProducts.getContent();
+        Specification<Product> spec = filter;
+        if(after != null && !after.isEmpty()) {
+            spec = spec.and(ProductCursor.decode(after, sortBy, ascending).toSpecification());
+        }
 
-        List<ProductDTO> productDTOS = products.stream()
-                .map(this::mapProductToDto)
-                .toList();
+        List<ProductListView> rows = productRepository.findListViews(spec, ProductCursor.sort(sortBy, ascending), pageSize + 1);
 
-        ProductResponse productResponse = new ProductResponse();
-        productResponse.setContent(productDTOS);
-        productResponse.setPageNumber(pageProducts.getNumber());
-        productResponse.setPageSize(pageProducts.getSize());
-        productResponse.setTotalElements(pageProducts.getTotalElements());
-        productResponse.setTotalPages(pageProducts.getTotalPages());
-        productResponse.setLastPage(pageProducts.isLast());
+        ProductCursorResponse productResponse = cursorResponse(rows, pageSize, sortBy, ascending);
+        if(withTotal) {
+            productResponse.setTotalElements(productRepository.count(filter));
+        }
         return productResponse;
     }
 
+    private ProductCursorResponse cursorResponse(List<ProductListView> rows, Integer pageSize, String sortBy, boolean ascending) {
+        boolean lastPage = rows.size() <= pageSize;
+        List<ProductListView> products = lastPage ? rows : rows.subList(0, pageSize);
+
+        ProductCursorResponse productResponse = new ProductCursorResponse();
+        productResponse.setContent(products.stream()
+                .map(this::mapViewToDto)
+                .toList());
+        productResponse.setPageSize(pageSize);
+        productResponse.setLastPage(lastPage);
+        productResponse.setNextCursor(lastPage ? null
+                : ProductCursor.of(products.get(products.size() - 1), sortBy, ascending).encode());
+        return productResponse;
+    }
+
+    private Page<ProductListView> hydrate(Page<Long> productIds) {
+        return new PageImpl<>(listViews(productIds.getContent()), productIds.getPageable(), productIds.getTotalElements());
+    }
+
+    //list views in the order of the ids, ids of products deleted meanwhile are skipped
+    private List<ProductListView> listViews(List<Long> productIds) {
+        Map<Long, ProductListView> byId = productRepository.findListViewsByIds(productIds).stream()
+                .collect(Collectors.toMap(ProductListView::productId, Function.identity()));
+        return productIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     private String constructImageUrl(String imageName) {
         return imageBaseUrl.endsWith("/") ? imageBaseUrl + imageName : imageBaseUrl + "/" + imageName;
     }
@@ -142,17 +254,18 @@ public class ProductServiceImpl implements ProductService {
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
-        Pageable pageDetails = PageRequest.of(pageNumber,pageSize,sortByAndOrder);
-        Page<Product> pageProducts = productRepository.findByCategoryOrderByPriceAsc(category,pageDetails);
+        //price first, same order as findByCategoryOrderByPriceAsc
+        Pageable pageDetails = PageRequest.of(pageNumber,pageSize,Sort.by("price").ascending().and(sortByAndOrder));
+        Page<ProductListView> pageProducts = productRepository.findListViews(inCategory(category), pageDetails);
 
-        List<Product> products = pageProducts.getContent();
+        List<ProductListView> products = pageProducts.getContent();
 
         if(products.isEmpty()) {
             throw new APIException(category.getCategoryName()+ " category does not have any products ");
         }
 
         List<ProductDTO> productDTOS = products.stream()
-                .map(this::mapProductToDto)
+                .map(this::mapViewToDto)
                 .toList();
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOS);
@@ -171,12 +284,14 @@ public class ProductServiceImpl implements ProductService {
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber,pageSize,sortByAndOrder);
-        Page<Product> pageProducts = productRepository.findByProductNameLikeIgnoreCase('%' +keyword+ '%',pageDetails);
+        Page<ProductListView> pageProducts = productSearchIndex.canServe(sortByAndOrder)
+                ? hydrate(productSearchIndex.search(keyword, null, pageDetails))
+                : productRepository.findListViews(productFilter(keyword, null), pageDetails);
 
 
-        List<Product> products = pageProducts.getContent();
+        List<ProductListView> products = pageProducts.getContent();
         List<ProductDTO> productDTOS = products.stream()
-                .map(this::mapProductToDto)
+                .map(this::mapViewToDto)
                 .toList();
 
         if(products.isEmpty()) {
@@ -193,6 +308,48 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    public ProductFacetResponse getFacetedProducts(String keyword, Long categoryId, Long sellerId, Integer priceBucket,
+                                                   Integer minRating, boolean inStockOnly, Integer pageNumber,
+                                                   Integer pageSize, String sortBy, String sortOrder) {
+        if (!productFacetEngine.isReady()) {
+            throw new APIException("Faceted search is not available yet");
+        }
+        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
+                ? Sort.by(sortBy).ascending()
+                : Sort.by(sortBy).descending();
+        if (!productFacetEngine.canSort(sortByAndOrder)) {
+            throw new APIException("Faceted search does not support sorting by " + sortBy);
+        }
+
+        Set<Long> keywordHits = null;
+        if (keyword != null && !keyword.isEmpty()) {
+            if (!productSearchIndex.isReady()) {
+                throw new APIException("Faceted search is not available yet");
+            }
+            keywordHits = productSearchIndex.matchingIds(keyword);
+        }
+
+        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
+        FacetResult result = productFacetEngine.query(
+                new FacetQuery(keywordHits, categoryId, sellerId, priceBucket, minRating, inStockOnly), pageDetails);
+        //facets and the id page come from memory, db only loads the page
+        Page<ProductListView> pageProducts = hydrate(result.productIds());
+
+        ProductFacetResponse productResponse = new ProductFacetResponse();
+        productResponse.setContent(pageProducts.getContent().stream()
+                .map(this::mapViewToDto)
+                .toList());
+        productResponse.setPageNumber(pageProducts.getNumber());
+        productResponse.setPageSize(pageProducts.getSize());
+        productResponse.setTotalElements(pageProducts.getTotalElements());
+        productResponse.setTotalPages(pageProducts.getTotalPages());
+        productResponse.setLastPage(pageProducts.isLast());
+        productResponse.setFacets(result.facets());
+        return productResponse;
+    }
+
+    @Override
+    @Transactional
     public ProductDTO updateProduct(Long productId, ProductDTO productDTO) {
        //get product
         Product productFromDb = productRepository.findById(productId)
@@ -202,28 +359,27 @@ public class ProductServiceImpl implements ProductService {
         productFromDb.setProductName(product.getProductName());
         productFromDb.setDescription(product.getDescription());
         productFromDb.setDetailDescription(product.getDetailDescription());
-        productFromDb.setQuantity(product.getQuantity());
+        //stock moves as a delta on the row, a checkout since the read keeps its decrement
+        Integer currentQuantity = productFromDb.getQuantity() != null ? productFromDb.getQuantity() : 0;
+        if (product.getQuantity() != null && !product.getQuantity().equals(currentQuantity)) {
+            productFromDb.setQuantity(inventoryService.applyStockEdit(productId, product.getQuantity() - currentQuantity));
+        }
         productFromDb.setDiscount(product.getDiscount());
         productFromDb.setPrice(product.getPrice());
+        double previousSpecialPrice = productFromDb.getSpecialPrice();
         productFromDb.setSpecialPrice( product.getPrice() -
                 ((product.getDiscount() * 0.01) * product.getPrice()));
 
         Product savedProduct = productRepository.save(productFromDb);
+        productSearchIndex.index(savedProduct);
+        productFacetEngine.update(savedProduct);
+        productCatalogCache.evict(productId);
+        //carts are not touched here, their lines priced at an older version are repriced when read
+        if (savedProduct.getSpecialPrice() != previousSpecialPrice) {
+            productRepository.bumpPriceVersion(productId);
+        }
         // Tax will be calculated in mapProductToDto
 
-        List<Cart> carts = cartRepository.findCartsByProductId(productId);
-
-        List<CartDTO> cartDTOS = carts.stream().map(cart -> {
-            CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-            List<ProductDTO> products = cart.getCartItems().stream()
-                    .map(cartItem -> mapProductToDto(cartItem.getProduct()))
-                    .toList();
-            cartDTO.setProducts(products);
-            return cartDTO;
-        }).toList();
-
-        cartDTOS.forEach(cart -> cartService.updateProductInCarts(cart.getCartId(),productId));
-
         return mapProductToDto(savedProduct);
     }
 
@@ -232,10 +388,12 @@ public class ProductServiceImpl implements ProductService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
 
-        List<Cart> carts = cartRepository.findCartsByProductId(productId);
-        carts.forEach(cart -> cartService.deleteProductFromCart(cart.getCartId(), productId));
+        cartStore.removeProduct(productId);
 
         productRepository.delete(product);
+        productSearchIndex.remove(productId);
+        productFacetEngine.remove(productId);
+        productCatalogCache.evict(productId);
         return mapProductToDto(product);
     }
 
@@ -247,6 +405,7 @@ public class ProductServiceImpl implements ProductService {
         String fileName = fileService.uploadImage(path, image);
         productFromDB.setImage(fileName);
         Product updatedProduct = productRepository.save(productFromDB);
+        productCatalogCache.evict(productId);
         return  mapProductToDto(updatedProduct);
     }
 
@@ -257,12 +416,10 @@ public class ProductServiceImpl implements ProductService {
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> pageProducts = productRepository.findAll(pageDetails);
+        Page<ProductListView> pageProducts = productRepository.findListViews(null, pageDetails);
 
-        List<Product> products = pageProducts.getContent();
-
-        List<ProductDTO> productDTOS = products.stream()
-                .map(this::mapProductToDto)
+        List<ProductDTO> productDTOS = pageProducts.getContent().stream()
+                .map(this::mapViewToDto)
                 .toList();
 
         ProductResponse productResponse = new ProductResponse();
@@ -284,12 +441,11 @@ public class ProductServiceImpl implements ProductService {
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
 
         User user = authUtil.loggedInUser();
-        Page<Product> pageProducts = productRepository.findByUser(user, pageDetails);
-
-        List<Product> products = pageProducts.getContent();
+        Specification<Product> ownedBy = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("user"), user);
+        Page<ProductListView> pageProducts = productRepository.findListViews(ownedBy, pageDetails);
 
-        List<ProductDTO> productDTOS = products.stream()
-                .map(this::mapProductToDto)
+        List<ProductDTO> productDTOS = pageProducts.getContent().stream()
+                .map(this::mapViewToDto)
                 .toList();
 
         ProductResponse productResponse = new ProductResponse();
@@ -306,7 +462,7 @@ public class ProductServiceImpl implements ProductService {
         if (product == null) {
             return null;
         }
-        ProductDTO dto = modelMapper.map(product, ProductDTO.class);
+        ProductDTO dto = dtoMapper.toProductDto(product);
         String imageName = product.getImage();
         dto.setImage(imageName != null ? constructImageUrl(imageName) : null);
         dto.setAverageRating(product.getAverageRating() != null ? product.getAverageRating() : 0.0);
@@ -324,35 +480,57 @@ public class ProductServiceImpl implements ProductService {
         return dto;
     }
 
+    private ProductDTO mapViewToDto(ProductListView view) {
+        // Calculate tax (7% on specialPrice)
+        double specialPrice = view.specialPrice() != 0 ? view.specialPrice() : view.price();
+        double taxAmount = specialPrice * 0.07;
+        return new ProductDTO(
+                view.productId(),
+                view.productName(),
+                view.image() != null ? constructImageUrl(view.image()) : null,
+                view.description(),
+                view.detailDescription(),
+                view.quantity(),
+                view.price(),
+                view.discount(),
+                view.specialPrice(),
+                view.averageRating() != null ? view.averageRating() : 0.0,
+                view.ratingCount() != null ? view.ratingCount() : 0,
+                view.sellerName(),
+                taxAmount,
+                specialPrice + taxAmount);
+    }
+
     @Override
     public ProductDetailResponse getProductDetail(Long productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
+        return productCatalogCache.getDetail(productId, this::loadProductDetail);
+    }
 
-        Category category = product.getCategory();
-        User seller = product.getUser();
-        Integer unitsSold = orderItemRepository.sumQuantitySoldByProductId(productId);
+    private ProductDetailResponse loadProductDetail(Long productId) {
+        //product, category, seller and units sold in one statement
+        ProductDetailView product = productRepository.findDetailView(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
 
         return ProductDetailResponse.builder()
-                .productId(product.getProductId())
-                .productName(product.getProductName())
-                .description(product.getDescription())
-                .detailDescription(product.getDetailDescription())
-                .quantity(product.getQuantity())
-                .price(product.getPrice())
-                .discount(product.getDiscount())
-                .specialPrice(product.getSpecialPrice())
-                .image(constructImageUrl(product.getImage()))
-                .categoryId(category != null ? category.getCategoryId() : null)
-                .categoryName(category != null ? category.getCategoryName() : null)
-                .averageRating(product.getAverageRating())
-                .ratingCount(product.getRatingCount())
-                .sellerId(seller != null ? seller.getUserId() : null)
-                .sellerName(seller != null ? seller.getUserName() : null)
-                .sellerEmail(seller != null ? seller.getEmail() : null)
-                .sellerAvatarUrl(seller != null ? seller.getAvatarUrl() : null)
-                .sellerHeadline(seller != null ? seller.getSellerHeadline() : null)
-                .unitsSold(unitsSold != null ? unitsSold : 0)
+                .productId(product.productId())
+                .productName(product.productName())
+                .description(product.description())
+                .detailDescription(product.detailDescription())
+                .quantity(product.quantity())
+                .price(product.price())
+                .discount(product.discount())
+                .specialPrice(product.specialPrice())
+                .image(constructImageUrl(product.image()))
+                .categoryId(product.categoryId())
+                .categoryName(product.categoryName())
+                .averageRating(product.averageRating())
+                .ratingCount(product.ratingCount())
+                .sellerId(product.sellerId())
+                .sellerName(product.sellerName())
+                .sellerEmail(product.sellerEmail())
+                .sellerAvatarUrl(product.sellerAvatarUrl())
+                .sellerHeadline(product.sellerHeadline())
+                .unitsSold(product.unitsSold() != null ? product.unitsSold().intValue() : 0)
                 .build();
     }
 
@@ -0,0 +1,91 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.util.ExportFormat;
+import com.ecommerce.project.util.QueryExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Streams the datasets the recommender trains on, in the shape of the dbt marts
+ * transaction_fpgrowth and user_item_dl, straight from a server side cursor.
+ * Memory use does not depend on the number of orders.
+ * <p>
+ * Incremental exports overlap: the watermark trails the oldest open transaction, so an order
+ * whose insert committed after an export still falls after that export's watermark and is
+ * sent again by the next one. Consumers must de-duplicate on transaction_id and on
+ * (user_id, product_id).
+ */
+@Service
+public class RecommendationExportService {
+
+    //same filtering and normalisation as stg_order_items
+    private static final String ORDER_LINES = """
+            from orders o
+            join order_items oi on oi.order_id = o.order_id
+            join products p on p.product_id = oi.product_id
+            where o.user_id is not null
+              and p.product_name is not null
+              and lower(trim(p.product_name)) <> ''
+            """;
+
+    private static final String SINCE = " and coalesce(o.placed_at, o.order_date::timestamp) > ?\n";
+
+    //placed_at is stamped before the insert commits, so rows can still appear behind any open
+    //transaction; the margin also covers the app clock running behind the database
+    private static final String WATERMARK = """
+            select least(localtimestamp, coalesce(min(xact_start)::timestamp, localtimestamp)) - make_interval(secs => ?)
+            from pg_stat_activity
+            where datname = current_database() and xact_start is not null and pid <> pg_backend_pid()
+            """;
+
+    private static final String TRANSACTIONS_SELECT = """
+            select o.order_id as transaction_id,
+                   string_agg(distinct lower(trim(p.product_name)), ',' order by lower(trim(p.product_name))) as items
+            """;
+
+    private static final String USER_ITEMS_SELECT = """
+            select distinct o.user_id, oi.product_id, lower(trim(p.product_name)) as product_name
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryExporter queryExporter;
+    private final long watermarkLagSeconds;
+
+    public RecommendationExportService(JdbcTemplate jdbcTemplate, QueryExporter queryExporter,
+                                       @Value("${exports.watermark-lag-seconds:60}") long watermarkLagSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queryExporter = queryExporter;
+        this.watermarkLagSeconds = watermarkLagSeconds;
+    }
+
+    /**
+     * Database time to hand back as the next {@code since}, taken before the export starts. It is
+     * the start of the oldest open transaction, or now if there is none, minus
+     * {@code exports.watermark-lag-seconds}, so no order committed later can be placed before it.
+     */
+    public LocalDateTime currentWatermark() {
+        return jdbcTemplate.queryForObject(WATERMARK, LocalDateTime.class, watermarkLagSeconds);
+    }
+
+    public void exportTransactions(ExportFormat format, LocalDateTime since, OutputStream out) {
+        String sql = TRANSACTIONS_SELECT + ORDER_LINES + (since != null ? SINCE : "")
+                + "group by o.order_id\norder by o.order_id";
+        stream(sql, since, format, out, List.of("transaction_id", "items"));
+    }
+
+    public void exportUserItems(ExportFormat format, LocalDateTime since, OutputStream out) {
+        String sql = USER_ITEMS_SELECT + ORDER_LINES + (since != null ? SINCE : "")
+                + "order by o.user_id, oi.product_id";
+        stream(sql, since, format, out, List.of("user_id", "product_id", "product_name"));
+    }
+
+    private void stream(String sql, LocalDateTime since, ExportFormat format, OutputStream out, List<String> columns) {
+        Object[] args = since != null ? new Object[]{since} : new Object[0];
+        queryExporter.export(sql, args, format, out, columns);
+    }
+}
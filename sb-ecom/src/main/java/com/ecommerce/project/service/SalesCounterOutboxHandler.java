@@ -0,0 +1,49 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.outbox.OrderEvents;
+import com.ecommerce.project.outbox.OutboxHandler;
+import com.ecommerce.project.outbox.OutboxMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Keeps the sales counters in step with placed, cancelled and reopened orders.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesCounterOutboxHandler implements OutboxHandler {
+
+    public static final String NAME = "sales-counters";
+
+    private final ProductSalesCounterService productSalesCounterService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Set<String> eventTypes() {
+        return Set.of(OrderEvents.ORDER_PLACED, OrderEvents.ORDER_CANCELLED, OrderEvents.ORDER_REOPENED);
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        OrderEvents.OrderLines lines;
+        try {
+            lines = objectMapper.readValue(message.payload(), OrderEvents.OrderLines.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unreadable payload on outbox event " + message.id(), e);
+        }
+        if (OrderEvents.ORDER_CANCELLED.equals(message.eventType())) {
+            productSalesCounterService.recordCancellation(lines.quantities());
+        } else {
+            productSalesCounterService.recordSale(lines.quantities());
+        }
+    }
+}
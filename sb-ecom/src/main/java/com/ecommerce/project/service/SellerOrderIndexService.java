@@ -0,0 +1,73 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.SellerOrder;
+import com.ecommerce.project.repositories.SellerOrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Maintains the seller_orders index behind the seller order list.
+ */
+@Service
+@RequiredArgsConstructor
+public class SellerOrderIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(SellerOrderIndexService.class);
+
+    private static final String INSERT =
+            "insert into seller_orders (seller_id, order_id, order_date, placed_at, total_amount) " +
+            "values (?, ?, ?, ?, ?) on conflict (seller_id, order_id) do nothing";
+
+    private final SellerOrderRepository sellerOrderRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Indexes a new order under every seller of the given products, in one batch.
+     */
+    @Transactional
+    public void index(Order order, Collection<Product> products) {
+        //the seller id is read from the proxy without loading the user
+        TreeSet<Long> sellerIds = new TreeSet<>();
+        products.stream()
+                .map(Product::getUser)
+                .filter(Objects::nonNull)
+                .forEach(seller -> sellerIds.add(seller.getUserId()));
+        if (sellerIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(sellerIds.size());
+        for (Long sellerId : sellerIds) {
+            rows.add(new Object[]{sellerId, order.getOrderId(), order.getOrderDate(), order.getPlacedAt(), order.getTotalAmount()});
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<SellerOrder> findBySeller(Long sellerId, Pageable pageable) {
+        return sellerOrderRepository.findBySellerId(sellerId, pageable);
+    }
+
+    /**
+     * Adds the orders missing from the index. Existing rows are kept.
+     */
+    @Transactional
+    public int rebuild() {
+        int indexed = sellerOrderRepository.insertFromOrderHistory();
+        log.info("Indexed {} seller orders from order history", indexed);
+        return indexed;
+    }
+}
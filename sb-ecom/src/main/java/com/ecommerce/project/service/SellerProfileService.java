@@ -16,6 +16,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -25,6 +26,7 @@ public class SellerProfileService {
 
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final ProductSalesCounterService productSalesCounterService;
 
     public SellerProfileResponse getSellerProfile(Long sellerId, int productLimit) {
         User seller = userRepository.findById(sellerId)
@@ -39,9 +41,7 @@ public class SellerProfileService {
         long totalProducts = productRepository.countByUser(seller);
         Double avgPrice = productRepository.findAveragePriceByUser(seller);
 
-        List<SellerProductSummary> productSummaries = productPage.getContent().stream()
-                .map(this::toSummary)
-                .collect(Collectors.toList());
+        List<SellerProductSummary> productSummaries = toSummaries(productPage.getContent());
 
         return SellerProfileResponse.builder()
                 .sellerId(seller.getUserId())
@@ -67,10 +67,7 @@ public class SellerProfileService {
                 seller,
                 PageRequest.of(resolvedPage, resolvedSize, Sort.by(Sort.Direction.DESC, "productId")));
 
-        List<SellerProductSummary> summaries = productPage.getContent()
-                .stream()
-                .map(this::toSummary)
-                .collect(Collectors.toList());
+        List<SellerProductSummary> summaries = toSummaries(productPage.getContent());
 
         return SellerProductsResponse.builder()
                 .items(summaries)
@@ -91,7 +88,17 @@ public class SellerProfileService {
         }
     }
 
-    private SellerProductSummary toSummary(Product product) {
+    private List<SellerProductSummary> toSummaries(List<Product> products) {
+        //one counter lookup for the whole page
+        Map<Long, Long> unitsSold = productSalesCounterService.unitsSold(products.stream()
+                .map(Product::getProductId)
+                .toList());
+        return products.stream()
+                .map(product -> toSummary(product, unitsSold.getOrDefault(product.getProductId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
+    private SellerProductSummary toSummary(Product product, long unitsSold) {
         return SellerProductSummary.builder()
                 .productId(product.getProductId())
                 .productName(product.getProductName())
@@ -103,6 +110,7 @@ public class SellerProfileService {
                 .quantity(product.getQuantity())
                 .averageRating(product.getAverageRating())
                 .ratingCount(product.getRatingCount())
+                .unitsSold(unitsSold)
                 .build();
     }
 }
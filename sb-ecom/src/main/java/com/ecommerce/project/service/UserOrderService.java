@@ -1,5 +1,7 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.payload.order.StockReservationResponse;
+import com.ecommerce.project.payload.order.UserOrderCursorResponse;
 import com.ecommerce.project.payload.order.UserOrderDetailResponse;
 import com.ecommerce.project.payload.order.UserOrderSummary;
 import org.springframework.data.domain.Page;
@@ -8,8 +10,14 @@ import org.springframework.data.domain.Pageable;
 public interface UserOrderService {
     Page<UserOrderSummary> getCurrentUserOrders(Pageable pageable);
 
+    UserOrderCursorResponse getCurrentUserOrdersAfter(String after, int size, boolean ascending);
+
     UserOrderDetailResponse getOrderDetail(Long orderId);
 
     UserOrderDetailResponse cancelOrder(Long orderId);
+
+    StockReservationResponse reserveCart();
+
+    boolean cancelCartReservation();
 }
 
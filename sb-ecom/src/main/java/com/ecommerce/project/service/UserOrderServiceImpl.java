@@ -1,25 +1,39 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.cart.CartLine;
+import com.ecommerce.project.cart.CartState;
+import com.ecommerce.project.cart.CartStore;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.mapper.DtoMapper;
 import com.ecommerce.project.model.Order;
-import com.ecommerce.project.model.OrderItem;
-import com.ecommerce.project.model.Product;
-import com.ecommerce.project.model.ProductReview;
+import com.ecommerce.project.model.StockReservation;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.order.OrderCursor;
+import com.ecommerce.project.outbox.OrderEvents;
+import com.ecommerce.project.outbox.OutboxPublisher;
 import com.ecommerce.project.payload.AddressDTO;
+import com.ecommerce.project.payload.order.StockReservationResponse;
+import com.ecommerce.project.payload.order.UserOrderCursorResponse;
 import com.ecommerce.project.payload.order.UserOrderDetailResponse;
 import com.ecommerce.project.payload.order.UserOrderItemView;
 import com.ecommerce.project.payload.order.UserOrderSummary;
 import com.ecommerce.project.repositories.OrderRepository;
-import com.ecommerce.project.repositories.ProductRepository;
 import com.ecommerce.project.repositories.ProductReviewRepository;
+import com.ecommerce.project.repositories.projection.OrderDetailRow;
+import com.ecommerce.project.repositories.projection.OrderItemReviewView;
+import com.ecommerce.project.repositories.projection.OrderSummaryView;
 import com.ecommerce.project.util.AuthUtil;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,99 +41,155 @@ import java.util.stream.Collectors;
 public class UserOrderServiceImpl implements UserOrderService {
 
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
     private final ProductReviewRepository productReviewRepository;
     private final AuthUtil authUtil;
-    private final ModelMapper modelMapper;
+    private final DtoMapper dtoMapper;
+    private final OutboxPublisher outboxPublisher;
+    private final InventoryService inventoryService;
+    private final CartStore cartStore;
 
     @Override
     @Transactional(readOnly = true)
     public Page<UserOrderSummary> getCurrentUserOrders(Pageable pageable) {
         Long userId = authUtil.loggedInUserId();
-        return orderRepository.findByUserUserId(userId, pageable)
+        return orderRepository.findSummaries(userId, pageable)
                 .map(this::mapToSummary);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public UserOrderCursorResponse getCurrentUserOrdersAfter(String after, int size, boolean ascending) {
+        Long userId = authUtil.loggedInUserId();
+        Long afterOrderId = after.isEmpty() ? null : OrderCursor.decode(after, ascending).orderId();
+
+        //one row past the page tells whether there is a next one, no count needed
+        List<OrderSummaryView> rows = orderRepository.findSummariesAfter(userId, afterOrderId, ascending, size + 1);
+        boolean lastPage = rows.size() <= size;
+        List<OrderSummaryView> page = lastPage ? rows : rows.subList(0, size);
+
+        return UserOrderCursorResponse.builder()
+                .content(page.stream().map(this::mapToSummary).toList())
+                .pageSize(size)
+                .lastPage(lastPage)
+                .nextCursor(lastPage ? null : new OrderCursor(ascending, page.get(page.size() - 1).orderId()).encode())
+                .build();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public UserOrderDetailResponse getOrderDetail(Long orderId) {
-        Order order = getUserOrder(orderId);
-        return mapToDetail(order);
+        return loadDetail(orderId, authUtil.loggedInUserId());
     }
 
     @Override
     @Transactional
     public UserOrderDetailResponse cancelOrder(Long orderId) {
-        Order order = getUserOrder(orderId);
+        //locked, so a cancel racing another status change releases stock at most once
+        Order order = orderRepository.findByOrderIdAndUserIdForUpdate(orderId, authUtil.loggedInUserId())
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
         if (!"PENDING".equalsIgnoreCase(order.getOrderStatus())) {
             throw new IllegalStateException("Only pending orders can be cancelled");
         }
 
         order.setOrderStatus("CANCELLED");
-        for (OrderItem item : order.getOrderItems()) {
-            Product product = item.getProduct();
-            if (product != null) {
-                product.setQuantity(product.getQuantity() + item.getQuantity());
-                productRepository.save(product);
-            }
+        inventoryService.releaseForOrder(orderId, order.getOrderItems());
+        outboxPublisher.publish(OrderEvents.ORDER_CANCELLED, orderId,
+                new OrderEvents.OrderLines(orderId, InventoryService.quantitiesOf(order.getOrderItems())));
+        orderRepository.save(order);
+        return loadDetail(orderId, order.getUser().getUserId());
+    }
+
+    @Override
+    @Transactional
+    public StockReservationResponse reserveCart() {
+        User user = authUtil.loggedInUser();
+        CartState cart = cartStore.find(user.getEmail());
+        if (cart == null) {
+            throw new APIException("Cart is empty");
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartLine line : cart.lines()) {
+            quantities.merge(line.productId(), line.quantity(), Integer::sum);
         }
-        Order updated = orderRepository.save(order);
-        return mapToDetail(updated);
+        StockReservation reservation = inventoryService.hold(user.getUserId(), quantities);
+        return StockReservationResponse.builder()
+                .reservationId(reservation.getReservationId())
+                .status(reservation.getStatus())
+                .expiresAt(reservation.getExpiresAt())
+                .quantities(quantities)
+                .build();
     }
 
-    private Order getUserOrder(Long orderId) {
-        Long userId = authUtil.loggedInUserId();
-        return orderRepository.findByOrderIdAndUserUserId(orderId, userId)
-                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+    @Override
+    public boolean cancelCartReservation() {
+        return inventoryService.cancelHold(authUtil.loggedInUserId());
     }
 
-    private UserOrderSummary mapToSummary(Order order) {
-        int totalItems = order.getOrderItems()
-                .stream()
-                .mapToInt(OrderItem::getQuantity)
-                .sum();
+    private UserOrderSummary mapToSummary(OrderSummaryView order) {
         return UserOrderSummary.builder()
-                .orderId(order.getOrderId())
-                .orderStatus(order.getOrderStatus())
-                .totalAmount(order.getTotalAmount())
-                .placedAt(order.getPlacedAt())
-                .totalItems(totalItems)
+                .orderId(order.orderId())
+                .orderStatus(order.orderStatus())
+                .totalAmount(order.totalAmount())
+                .placedAt(order.placedAt())
+                .totalItems(order.totalItems().intValue())
                 .build();
     }
 
-    private UserOrderDetailResponse mapToDetail(Order order) {
-        boolean delivered = "DELIVERED".equalsIgnoreCase(order.getOrderStatus());
-        List<UserOrderItemView> items = order.getOrderItems().stream()
+    //the order with its items and address in one query, then the reviews of all items in one more
+    private UserOrderDetailResponse loadDetail(Long orderId, Long userId) {
+        List<OrderDetailRow> rows = orderRepository.findDetailRows(orderId, userId);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Order not found");
+        }
+        List<Long> orderItemIds = rows.stream()
+                .map(OrderDetailRow::orderItemId)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<Long, OrderItemReviewView> reviews = orderItemIds.isEmpty() ? Map.of()
+                : productReviewRepository.findViewsByOrderItemIds(orderItemIds).stream()
+                        .collect(Collectors.toMap(OrderItemReviewView::orderItemId, Function.identity()));
+
+        OrderDetailRow order = rows.get(0);
+        boolean delivered = "DELIVERED".equalsIgnoreCase(order.orderStatus());
+        List<UserOrderItemView> items = rows.stream()
+                .filter(item -> item.orderItemId() != null)
                 .map(item -> {
-                    var reviewOpt = productReviewRepository.findByOrderItem(item);
-                    ProductReview review = reviewOpt.orElse(null);
+                    OrderItemReviewView review = reviews.get(item.orderItemId());
                     return UserOrderItemView.builder()
-                        .orderItemId(item.getOrderItemId())
-                        .productId(item.getProduct() != null ? item.getProduct().getProductId() : null)
-                        .productName(item.getProduct() != null ? item.getProduct().getProductName() : null)
-                        .quantity(item.getQuantity())
-                        .unitPrice(item.getOrderProductPrice())
-                        .discount(item.getDiscount())
-                        .lineTotal((item.getOrderProductPrice() - item.getDiscount()) * item.getQuantity())
+                        .orderItemId(item.orderItemId())
+                        .productId(item.productId())
+                        .productName(item.productName())
+                        .quantity(item.quantity())
+                        .unitPrice(item.unitPrice())
+                        .discount(item.discount())
+                        .lineTotal((item.unitPrice() - item.discount()) * item.quantity())
                         .reviewSubmitted(review != null)
                         .canReview(delivered && review == null)
-                        .reviewId(review != null ? review.getReviewId() : null)
-                        .reviewRating(review != null ? review.getRating() : null)
-                        .reviewTitle(review != null ? review.getTitle() : null)
-                        .reviewComment(review != null ? review.getComment() : null)
+                        .reviewId(review != null ? review.reviewId() : null)
+                        .reviewRating(review != null ? review.rating() : null)
+                        .reviewTitle(review != null ? review.title() : null)
+                        .reviewComment(review != null ? review.comment() : null)
                         .build();
                 })
                 .collect(Collectors.toList());
 
-        AddressDTO addressDTO = order.getAddress() != null
-                ? modelMapper.map(order.getAddress(), AddressDTO.class)
-                : null;
+        AddressDTO addressDTO = null;
+        if (order.addressId() != null) {
+            addressDTO = new AddressDTO();
+            addressDTO.setAddressId(order.addressId());
+            addressDTO.setStreet(order.street());
+            addressDTO.setBuildingName(order.buildingName());
+            addressDTO.setCity(order.city());
+            addressDTO.setState(order.state());
+            addressDTO.setCountry(order.country());
+            addressDTO.setPincode(order.pincode());
+        }
 
         return UserOrderDetailResponse.builder()
-                .orderId(order.getOrderId())
-                .orderStatus(order.getOrderStatus())
-                .totalAmount(order.getTotalAmount())
-                .placedAt(order.getPlacedAt())
+                .orderId(order.orderId())
+                .orderStatus(order.orderStatus())
+                .totalAmount(order.totalAmount())
+                .placedAt(order.placedAt())
                 .items(items)
                 .shippingAddress(addressDTO)
                 .build();
@@ -0,0 +1,86 @@
+package com.ecommerce.project.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader. Handles quoted fields, doubled quotes and line breaks inside
+ * quotes, and reads one record at a time so large uploads are parsed in constant memory.
+ */
+public class CsvReader implements Closeable {
+
+    private final BufferedReader reader;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 64 * 1024);
+    }
+
+    /**
+     * Returns the next record, skipping blank lines, or null at the end of the input.
+     */
+    public List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean sawAny = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            sawAny = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                if (endRecord(fields, field)) {
+                    return fields;
+                }
+            } else if (c == '\n') {
+                if (endRecord(fields, field)) {
+                    return fields;
+                }
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (!sawAny || (fields.isEmpty() && field.isEmpty() && !quoted)) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean endRecord(List<String> fields, StringBuilder field) {
+        if (fields.isEmpty() && field.isEmpty()) {
+            return false; // blank line
+        }
+        fields.add(field.toString());
+        return true;
+    }
+}
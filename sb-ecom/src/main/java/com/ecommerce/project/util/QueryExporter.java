@@ -0,0 +1,61 @@
+package com.ecommerce.project.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Streams the result of a query to an export through a server side cursor, one row at a time,
+ * so memory use does not depend on the number of rows.
+ */
+@Component
+public class QueryExporter {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public QueryExporter(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper) {
+        //own copy so the fetch size does not leak to other users of the shared template
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every row of the query, its select list in the order of {@code columns}.
+     */
+    public void export(String sql, Object[] args, ExportFormat format, OutputStream out, List<String> columns) {
+        try {
+            RowWriter writer = RowWriter.open(format, out, columns, objectMapper);
+            //postgres only streams through a cursor inside a transaction
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, rs -> {
+                Object[] values = new Object[columns.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = rs.getObject(i + 1);
+                }
+                try {
+                    writer.write(values);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args));
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
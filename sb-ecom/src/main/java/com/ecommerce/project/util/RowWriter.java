@@ -0,0 +1,101 @@
+package com.ecommerce.project.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes the rows of an export one at a time, so an export of any size streams through a
+ * fixed buffer. CSV gets a header line, NDJSON one object per line keyed by column name.
+ */
+public abstract class RowWriter implements Flushable {
+
+    protected final List<String> columns;
+
+    protected RowWriter(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public static RowWriter open(ExportFormat format, OutputStream out, List<String> columns,
+                                 ObjectMapper objectMapper) throws IOException {
+        return format == ExportFormat.CSV
+                ? new Csv(out, columns)
+                : new Ndjson(out, columns, objectMapper);
+    }
+
+    /**
+     * Writes one row, values in column order.
+     */
+    public abstract void write(Object... values) throws IOException;
+
+    private static final class Csv extends RowWriter {
+        private final Writer writer;
+
+        Csv(OutputStream out, List<String> columns) throws IOException {
+            super(columns);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            write(columns.toArray());
+        }
+
+        @Override
+        public void write(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writer.write(escape(values[i].toString()));
+                }
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static final class Ndjson extends RowWriter {
+        private final JsonGenerator generator;
+
+        Ndjson(OutputStream out, List<String> columns, ObjectMapper objectMapper) throws IOException {
+            super(columns);
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.setPrettyPrinter(null);
+            //lines are ended explicitly below instead of Jackson's space between root values
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(Object... values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(columns.get(i));
+                generator.writeObject(values[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+}
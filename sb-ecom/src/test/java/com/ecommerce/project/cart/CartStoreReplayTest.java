@@ -0,0 +1,143 @@
+package com.ecommerce.project.cart;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A change applied to a resident cart right before a conflicting flush carries it over to the
+ * reloaded cart lands once, even though its writer then finds its own copy stale.
+ */
+class CartStoreReplayTest {
+
+    private static final Long CART_ID = 1L;
+    private static final Long PRODUCT_ID = 7L;
+    private static final String EMAIL = "replay@example.com";
+
+    @Test
+    void changeCarriedByReplayIsNotAppliedAgain() throws Exception {
+        CountDownLatch writerApplied = new CountDownLatch(1);
+        CountDownLatch flushed = new CountDownLatch(1);
+        PausingCartState resident = new PausingCartState(writerApplied, flushed);
+
+        CartStore cartStore = new CartStore(new ChangedElsewhere(resident), new NoOpTransactionManager(),
+                true, 1, 100, 3600, TimeUnit.HOURS.toMillis(1), 500, 3);
+        AtomicInteger applications = new AtomicInteger();
+
+        CompletableFuture<CartState> writer = CompletableFuture.supplyAsync(() -> {
+            resident.pauseOn(Thread.currentThread());
+            return cartStore.update(() -> cartStore.find(EMAIL), cart -> {
+                applications.incrementAndGet();
+                CartLine line = cart.line(PRODUCT_ID);
+                cart.putLine(new CartLine(PRODUCT_ID, line.quantity() + 1, 0.0, 10.0, 0L));
+            });
+        });
+
+        //the writer has applied its change and not yet looked at its copy again
+        assertTrue(writerApplied.await(10, TimeUnit.SECONDS));
+        cartStore.flushAll();
+        flushed.countDown();
+
+        CartState result = writer.get(10, TimeUnit.SECONDS);
+        assertNotSame(resident, result);
+        assertSame(result, cartStore.find(EMAIL));
+        assertEquals(2, result.line(PRODUCT_ID).quantity());
+        //once by the writer on its copy, once by the replay on the reloaded cart
+        assertEquals(2, applications.get());
+    }
+
+    /**
+     * The carts row was changed elsewhere: every write of the version the store holds is stale,
+     * a reload sees the new one.
+     */
+    private static final class ChangedElsewhere extends CartPersistence {
+
+        private final CartState resident;
+
+        ChangedElsewhere(CartState resident) {
+            super(null);
+            this.resident = resident;
+        }
+
+        @Override
+        CartState loadByEmail(String email) {
+            return resident;
+        }
+
+        @Override
+        CartState loadById(Long cartId) {
+            return new CartState(CART_ID, 2L, EMAIL, List.of(new CartLine(PRODUCT_ID, 1, 0.0, 10.0, 0L)), 10.0, 1);
+        }
+
+        @Override
+        Set<Long> write(List<CartState.Snapshot> snapshots) {
+            return Set.of(CART_ID);
+        }
+    }
+
+    /**
+     * Holds the writer between applying its change and checking whether its copy was detached.
+     */
+    private static final class PausingCartState extends CartState {
+
+        private final CountDownLatch applied;
+        private final CountDownLatch resume;
+        private volatile Thread writer;
+
+        PausingCartState(CountDownLatch applied, CountDownLatch resume) {
+            super(CART_ID, 2L, EMAIL, List.of(new CartLine(PRODUCT_ID, 1, 0.0, 10.0, 0L)), 10.0, 0);
+            this.applied = applied;
+            this.resume = resume;
+        }
+
+        void pauseOn(Thread thread) {
+            writer = thread;
+        }
+
+        @Override
+        boolean isDetached() {
+            if (Thread.currentThread() == writer && applied.getCount() > 0) {
+                applied.countDown();
+                try {
+                    resume.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.isDetached();
+        }
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Payment;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DtoMapperParityTest {
+
+    private final DtoMapper reference = new ModelMapperDtoMapper(new ModelMapper());
+    private final DtoMapper compiled = new CompiledDtoMapper();
+
+    @Test
+    void productMatchesModelMapper() {
+        assertEquals(reference.toProductDto(product()), compiled.toProductDto(product()));
+        assertEquals(reference.toProductDto(new Product()), compiled.toProductDto(new Product()));
+    }
+
+    @Test
+    void cartMatchesModelMapper() {
+        Cart cart = new Cart();
+        cart.setCartId(11L);
+        cart.setTotalPrice(19.6);
+        cart.setUser(seller());
+        cart.getCartItems().add(new CartItem(21L, cart, product(), 2, 2.0, 9.8, 0L));
+
+        assertEquals(reference.toCartDto(cart), compiled.toCartDto(cart));
+        assertEquals(reference.toCartDto(new Cart()), compiled.toCartDto(new Cart()));
+    }
+
+    @Test
+    void addressMatchesModelMapper() {
+        assertEquals(reference.toAddressDto(address()), compiled.toAddressDto(address()));
+        assertEquals(reference.toAddressDto(new Address()), compiled.toAddressDto(new Address()));
+    }
+
+    @Test
+    void orderItemMatchesModelMapper() {
+        OrderItem orderItem = new OrderItem(61L, product(), order(), 2, 2.0, 9.8, 1.37, 20.97);
+
+        assertEquals(reference.toOrderItemDto(orderItem), compiled.toOrderItemDto(orderItem));
+        assertEquals(reference.toOrderItemDto(new OrderItem()), compiled.toOrderItemDto(new OrderItem()));
+    }
+
+    @Test
+    void orderMatchesModelMapper() {
+        Order order = order();
+        order.getOrderItems().add(new OrderItem(61L, product(), order, 2, 2.0, 9.8, 1.37, 20.97));
+        order.getOrderItems().add(new OrderItem(62L, null, order, 1, 0.0, 5.0, 0.35, 5.35));
+
+        assertEquals(reference.toOrderDto(order), compiled.toOrderDto(order));
+        assertEquals(reference.toOrderDto(new Order()), compiled.toOrderDto(new Order()));
+    }
+
+    private static User seller() {
+        User seller = new User("seller1", "seller1@example.com", "secret");
+        seller.setUserId(7L);
+        return seller;
+    }
+
+    private static Product product() {
+        Category category = new Category();
+        category.setCategoryId(3L);
+        category.setCategoryName("Phones");
+
+        Product product = new Product();
+        product.setProductId(1L);
+        product.setProductName("Phone X");
+        product.setImage("phone.png");
+        product.setDescription("A phone");
+        product.setDetailDescription("<p>A phone</p>");
+        product.setQuantity(5);
+        product.setPrice(10.0);
+        product.setDiscount(2.0);
+        product.setSpecialPrice(9.8);
+        product.setAverageRating(4.5);
+        product.setRatingCount(2);
+        product.setCategory(category);
+        product.setUser(seller());
+        return product;
+    }
+
+    private static Address address() {
+        Address address = new Address("Main street", "700000", "Building A", "Saigon", "District", "Vietnam");
+        address.setAddressId(31L);
+        return address;
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.setOrderId(41L);
+        order.setEmail("user1@example.com");
+        order.setOrderDate(LocalDate.of(2024, 1, 2));
+        order.setPlacedAt(LocalDateTime.of(2024, 1, 2, 10, 30));
+        order.setTotalAmount(24.6);
+        order.setTaxAmount(1.72);
+        order.setTotalAmountAfterTax(26.32);
+        order.setOrderStatus("PENDING");
+        order.setAddress(address());
+
+        Payment payment = new Payment("card", "pi_1", "succeeded", "ok", "Stripe");
+        payment.setPaymentId(51L);
+        order.setPayment(payment);
+        return order;
+    }
+}
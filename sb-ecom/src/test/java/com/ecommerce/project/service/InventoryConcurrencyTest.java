@@ -0,0 +1,180 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.inventory.FlashSaleStock;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.StockReservation;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.StockReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Many buyers racing for the last units of a product: exactly the units in stock are sold
+ * and the quantity never goes below zero, whether the row or the flash-sale counters grant
+ * them. Not transactional, every reservation commits.
+ */
+@SpringBootTest(properties = {
+        "catalog.search-index.enabled=false",
+        "catalog.cache.enabled=false",
+        "inventory.reservation.ttl-minutes=0",
+        "inventory.reservation.sweep-interval-ms=3600000",
+        "inventory.flash-sale.reconcile-interval-ms=3600000"
+})
+class InventoryConcurrencyTest {
+
+    private static final int STOCK = 50;
+    private static final int BUYERS = 400;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private FlashSaleStock flashSaleStock;
+
+    private Category category;
+    private final List<Product> products = new ArrayList<>();
+    private final List<Long> reservationIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        category = new Category();
+        category.setCategoryName("inventory-concurrency-category");
+        category = categoryRepository.save(category);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stockReservationRepository.deleteAllById(reservationIds);
+        productRepository.deleteAll(products);
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Product product = product(STOCK);
+
+        assertEquals(STOCK, buyConcurrently(product));
+        assertEquals(0, quantityOf(product));
+    }
+
+    @Test
+    void flashSaleNeverOversellsAndReconcilesTheRow() throws Exception {
+        Product product = product(STOCK);
+        flashSaleStock.start(product.getProductId());
+        try {
+            assertEquals(STOCK, buyConcurrently(product));
+            assertEquals(0, flashSaleStock.available(product.getProductId()));
+
+            //the row only learns about the sales on reconciliation
+            flashSaleStock.reconcile();
+            assertEquals(0, quantityOf(product));
+        } finally {
+            flashSaleStock.stop(product.getProductId());
+        }
+    }
+
+    @Test
+    void orderWithOneShortLineTakesNothing() {
+        Product plenty = product(10);
+        Product scarce = product(1);
+
+        assertThrows(APIException.class, () -> inventoryService.reserve(Map.of(
+                plenty.getProductId(), 3,
+                scarce.getProductId(), 2)));
+
+        assertEquals(10, quantityOf(plenty));
+        assertEquals(1, quantityOf(scarce));
+    }
+
+    @Test
+    void expiredHoldIsReleased() throws Exception {
+        Product product = product(5);
+        StockReservation hold = inventoryService.hold(-1L, Map.of(product.getProductId(), 4));
+        reservationIds.add(hold.getReservationId());
+        assertEquals(1, quantityOf(product));
+
+        //the hold was created with a zero minute ttl
+        Thread.sleep(10);
+        inventoryService.releaseExpired();
+
+        assertEquals(5, quantityOf(product));
+        assertEquals(StockReservation.EXPIRED,
+                stockReservationRepository.findById(hold.getReservationId()).orElseThrow().getStatus());
+    }
+
+    //BUYERS buyers race for one unit each, returns how many got one
+    private int buyConcurrently(Product product) throws Exception {
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(pool.submit(() -> {
+                start.await();
+                try {
+                    inventoryService.reserve(Map.of(product.getProductId(), 1));
+                    sold.incrementAndGet();
+                } catch (APIException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(BUYERS, sold.get() + rejected.get());
+        return sold.get();
+    }
+
+    private Product product(int quantity) {
+        Product product = new Product();
+        product.setProductName("inventory product " + products.size());
+        product.setDescription("inventory concurrency test product");
+        product.setQuantity(quantity);
+        product.setPrice(100);
+        product.setSpecialPrice(100);
+        product.setCategory(category);
+        product = productRepository.save(product);
+        products.add(product);
+        return product;
+    }
+
+    private int quantityOf(Product product) {
+        return productRepository.findById(product.getProductId()).orElseThrow().getQuantity();
+    }
+}
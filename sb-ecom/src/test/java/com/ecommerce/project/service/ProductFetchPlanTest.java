@@ -0,0 +1,110 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.util.AuthUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Each product endpoint renders from a single projection query (plus the page count),
+ * whatever the number of rows, cart items or orders behind it.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "catalog.search-index.enabled=false",
+        "catalog.cache.enabled=false"
+})
+@Transactional
+class ProductFetchPlanTest {
+
+    private static final String SELLER = "fetchplan_seller";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private AuthUtil authUtil;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Category category;
+    private Product product;
+
+    @BeforeEach
+    void seed() {
+        User seller = new User(SELLER, "fetchplan_seller@example.com", "password");
+        entityManager.persist(seller);
+
+        category = new Category();
+        category.setCategoryName("fetchplan-category");
+        entityManager.persist(category);
+
+        // one more row than the page size, so every listing also has to count
+        for (int i = 0; i < 3; i++) {
+            product = new Product();
+            product.setProductName("fetchplan product " + i);
+            product.setDescription("fetch plan test product");
+            product.setQuantity(10);
+            product.setPrice(100 + i);
+            product.setSpecialPrice(90 + i);
+            product.setCategory(category);
+            product.setUser(seller);
+            entityManager.persist(product);
+        }
+        entityManager.flush();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void publicListingIsPageAndCount() {
+        assertEquals(2, statementsFor(() ->
+                productService.getAllProducts(0, 2, "productId", "asc", "fetchplan", null)));
+    }
+
+    @Test
+    void categoryListingIsLookupPageAndCount() {
+        assertEquals(3, statementsFor(() ->
+                productService.searchByCategory(category.getCategoryId(), 0, 2, "productId", "asc")));
+    }
+
+    @Test
+    void adminListingIsPageAndCount() {
+        assertEquals(2, statementsFor(() ->
+                productService.getAllProductsForAdmin(0, 2, "productId", "asc")));
+    }
+
+    @Test
+    @WithMockUser(username = SELLER)
+    void sellerListingIsPageAndCountAfterUserLookup() {
+        long userLookup = statementsFor(authUtil::loggedInUser);
+        assertEquals(userLookup + 2, statementsFor(() ->
+                productService.getAllProductsForSeller(0, 2, "productId", "asc")));
+    }
+
+    @Test
+    void detailIsOneStatement() {
+        assertEquals(1, statementsFor(() -> productService.getProductDetail(product.getProductId())));
+    }
+
+    private long statementsFor(Runnable call) {
+        entityManager.clear();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,163 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.ProductReview;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.order.UserOrderCursorResponse;
+import com.ecommerce.project.payload.order.UserOrderDetailResponse;
+import com.ecommerce.project.util.AuthUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Order history and order detail cost a fixed number of statements, however many orders,
+ * items and reviews are behind them.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "catalog.search-index.enabled=false",
+        "catalog.cache.enabled=false"
+})
+@Transactional
+@WithMockUser(username = UserOrderFetchPlanTest.BUYER)
+class UserOrderFetchPlanTest {
+
+    static final String BUYER = "fetchplan_buyer";
+
+    private static final int ORDERS = 3;
+    private static final int ITEMS_PER_ORDER = 4;
+
+    @Autowired
+    private UserOrderService userOrderService;
+
+    @Autowired
+    private AuthUtil authUtil;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Order order;
+    private long userLookup;
+
+    @BeforeEach
+    void seed() {
+        User buyer = new User(BUYER, "fetchplan_buyer@example.com", "password");
+        entityManager.persist(buyer);
+
+        Category category = new Category();
+        category.setCategoryName("order-fetchplan-category");
+        entityManager.persist(category);
+
+        Address address = new Address("fetchplan street", "123456", "fetchplan building", "City", "State", "Country");
+        address.setUser(buyer);
+        entityManager.persist(address);
+
+        // one more order than the page size, so the history has a second page
+        for (int i = 0; i < ORDERS; i++) {
+            order = new Order();
+            order.setEmail(buyer.getEmail());
+            order.setUser(buyer);
+            order.setOrderDate(LocalDate.now());
+            order.setPlacedAt(LocalDateTime.now());
+            order.setOrderStatus("DELIVERED");
+            order.setTotalAmount(100.0);
+            order.setAddress(address);
+            entityManager.persist(order);
+
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                Product product = new Product();
+                product.setProductName("order fetchplan product " + i + "-" + j);
+                product.setDescription("order fetch plan test product");
+                product.setQuantity(10);
+                product.setPrice(25);
+                product.setSpecialPrice(25);
+                product.setCategory(category);
+                entityManager.persist(product);
+
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(product);
+                item.setQuantity(2);
+                item.setOrderProductPrice(25);
+                entityManager.persist(item);
+
+                ProductReview review = new ProductReview();
+                review.setProduct(product);
+                review.setOrder(order);
+                review.setOrderItem(item);
+                review.setUser(buyer);
+                review.setRating(5);
+                entityManager.persist(review);
+            }
+        }
+        entityManager.flush();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        userLookup = statementsFor(authUtil::loggedInUserId);
+    }
+
+    @Test
+    void historyPageIsPageAndCount() {
+        assertEquals(userLookup + 2, statementsFor(() -> {
+            var page = userOrderService.getCurrentUserOrders(PageRequest.of(0, 2, Sort.by("placedAt").descending()));
+            assertEquals(ORDERS, page.getTotalElements());
+            page.getContent().forEach(summary -> assertEquals(2 * ITEMS_PER_ORDER, summary.getTotalItems()));
+        }));
+    }
+
+    @Test
+    void historyCursorPageIsOneStatement() {
+        AtomicReference<UserOrderCursorResponse> first = new AtomicReference<>();
+        assertEquals(userLookup + 1, statementsFor(() ->
+                first.set(userOrderService.getCurrentUserOrdersAfter("", 2, false))));
+        assertFalse(first.get().isLastPage());
+
+        AtomicReference<UserOrderCursorResponse> second = new AtomicReference<>();
+        assertEquals(userLookup + 1, statementsFor(() ->
+                second.set(userOrderService.getCurrentUserOrdersAfter(first.get().getNextCursor(), 2, false))));
+        assertTrue(second.get().isLastPage());
+        assertNull(second.get().getNextCursor());
+        assertEquals(ORDERS - 2, second.get().getContent().size());
+    }
+
+    @Test
+    void detailIsOneQueryPlusReviewLookup() {
+        AtomicReference<UserOrderDetailResponse> detail = new AtomicReference<>();
+        assertEquals(userLookup + 2, statementsFor(() ->
+                detail.set(userOrderService.getOrderDetail(order.getOrderId()))));
+        assertEquals(ITEMS_PER_ORDER, detail.get().getItems().size());
+        detail.get().getItems().forEach(item -> assertTrue(item.getReviewSubmitted()));
+        assertEquals("fetchplan street", detail.get().getShippingAddress().getStreet());
+    }
+
+    private long statementsFor(Runnable call) {
+        entityManager.clear();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+}